@@ -0,0 +1,48 @@
+package forestry.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The BenchmarkRunner class runs the forest benchmarks with the allocation profiler attached.
+ * Every benchmark reports its allocation rate and bytes allocated per operation next to its time,
+ * and the results are written to jmh-result.json so runs can be compared for regressions.
+ * Any standard JMH option can be given, for example a benchmark name pattern or {@code -p size=1000}.
+ *
+ * Build and run: {@code mvn -B package && java -jar benchmarks/target/benchmarks.jar}
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+    /**
+     * The seed used to plant every benchmark forest, so each run measures the same trees.
+     */
+    public static final long SEED = 20240429L;
+
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args standard JMH command line options
+     * @throws CommandLineOptionException if the options cannot be parsed
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (!commandLine.getResult().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result(RESULT_FILE);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package forestry.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * The CsvFixtureGenerator class writes forest CSV files of any size for the benchmarks.
+ * Rows follow the layout of Montane.csv and Acadian.csv: a capitalized species name, the planting year,
+ * a whole-number height and a growth rate with one decimal. The same seed always writes the same file.
+ *
+ * Run it on its own to write a fixture: {@code CsvFixtureGenerator <file> <rows> [seed]}
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class CsvFixtureGenerator {
+    private static final String[] SPECIES = {"Maple", "Fir", "Birch"};
+    private static final int MIN_YEAR = 2000;
+    private static final int MAX_YEAR = 2024;
+    private static final int MIN_HEIGHT = 10;
+    private static final int MAX_HEIGHT = 99;
+    private static final int MIN_GROWTH_TENTHS = 30;
+    private static final int MAX_GROWTH_TENTHS = 210;
+
+    /**
+     * Writes a fixture from the command line.
+     *
+     * @param args the file to write, the number of rows, and optionally the seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: CsvFixtureGenerator <file> <rows> [seed]");
+            return;
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        write(Path.of(args[0]), Integer.parseInt(args[1]), seed);
+    }
+
+    /**
+     * Writes a forest CSV file with the given number of random rows.
+     *
+     * @param file the file to write
+     * @param rows the number of trees to write
+     * @param seed the seed of the random rows
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, int rows, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder line = new StringBuilder(32);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int row = 0; row < rows; row++) {
+                int growthTenths = random.nextInt(MIN_GROWTH_TENTHS, MAX_GROWTH_TENTHS + 1);
+                line.setLength(0);
+                line.append(SPECIES[random.nextInt(SPECIES.length)]).append(',')
+                        .append(random.nextInt(MIN_YEAR, MAX_YEAR + 1)).append(',')
+                        .append(random.nextInt(MIN_HEIGHT, MAX_HEIGHT + 1)).append(',')
+                        .append(growthTenths / 10).append('.').append(growthTenths % 10).append('\n');
+                writer.append(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package forestry.benchmarks;
+
+import forestry.Forest;
+import forestry.Forestry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading forest CSV files of increasing size, written by CsvFixtureGenerator.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CsvReadBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private Path directory;
+    private String fileName;
+
+    /**
+     * Writes the CSV fixture.
+     *
+     * @throws IOException if the fixture cannot be written
+     */
+    @Setup(Level.Trial)
+    public void writeFixture() throws IOException {
+        directory = Files.createTempDirectory("forest-benchmark");
+        fileName = directory.resolve("Fixture").toString();
+        CsvFixtureGenerator.write(Path.of(fileName + ".csv"), size, BenchmarkRunner.SEED);
+    }
+
+    /**
+     * Deletes the CSV fixture.
+     *
+     * @throws IOException if the fixture cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void deleteFixture() throws IOException {
+        Files.delete(Path.of(fileName + ".csv"));
+        Files.delete(directory);
+    }
+
+    /**
+     * Reads the fixture into a new forest.
+     *
+     * @return the forest read from the file
+     */
+    @Benchmark
+    public Forest readForest() {
+        Forest forest = new Forest("Fixture");
+        Forestry.readForest(fileName, forest);
+        return forest;
+    }
+}
@@ -0,0 +1,86 @@
+package forestry.benchmarks;
+
+import forestry.Forest;
+import forestry.ForestCsvWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures writing forests of increasing size to CSV files, plain and compressed, on one thread and on several.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CsvWriteBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private Path directory;
+    private Forest forest;
+    private ForestCsvWriter writer;
+
+    /**
+     * Plants and grows the forest, so its heights need every digit to be written exactly.
+     *
+     * @throws IOException if the temporary directory cannot be created
+     */
+    @Setup(Level.Trial)
+    public void plant() throws IOException {
+        directory = Files.createTempDirectory("forest-benchmark");
+        forest = new Forest("Benchmark");
+        forest.plant(size, BenchmarkRunner.SEED);
+        forest.simulateGrowth(10);
+        writer = new ForestCsvWriter(threads);
+    }
+
+    /**
+     * Deletes the temporary directory.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Writes the forest to a plain CSV file.
+     *
+     * @return the number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    @Benchmark
+    public long writeCsv() throws IOException {
+        return writer.write(directory.resolve("Written.csv").toString(), forest);
+    }
+
+    /**
+     * Writes the forest to a compressed CSV file.
+     *
+     * @return the number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    @Benchmark
+    public long writeCompressedCsv() throws IOException {
+        return writer.write(directory.resolve("Written.csv.gz").toString(), forest);
+    }
+}
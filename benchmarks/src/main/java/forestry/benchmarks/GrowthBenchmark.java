@@ -0,0 +1,54 @@
+package forestry.benchmarks;
+
+import forestry.Forest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures yearly growth and the average height of forests of increasing size.
+ * The forest is planted again before every iteration, so heights stay in a realistic range
+ * instead of compounding towards infinity over millions of invocations.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class GrowthBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private Forest forest;
+
+    /**
+     * Plants a fresh forest for the next iteration.
+     */
+    @Setup(Level.Iteration)
+    public void plant() {
+        forest = new Forest("Benchmark");
+        forest.plant(size, BenchmarkRunner.SEED);
+    }
+
+    /**
+     * Grows every tree in the forest by one year.
+     */
+    @Benchmark
+    public void simulateYearlyGrowth() {
+        forest.simulateYearlyGrowth();
+    }
+
+    /**
+     * Calculates the average height of the trees.
+     *
+     * @return the average height, returned so the call is not optimized away
+     */
+    @Benchmark
+    public double calculateAverageHeight() {
+        return forest.calculateAverageHeight();
+    }
+}
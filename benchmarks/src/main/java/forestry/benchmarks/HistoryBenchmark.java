@@ -0,0 +1,51 @@
+package forestry.benchmarks;
+
+import forestry.Forest;
+import forestry.ForestHistory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of recording a forest's history on the yearly growth tick.
+ * Each iteration plants a fresh forest, starts recording if the benchmark records, and then grows it
+ * one year per invocation, so the difference between the two settings is the recorder's overhead.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class HistoryBenchmark {
+    @Param({"100000", "1000000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean recording;
+
+    private Forest forest;
+
+    /**
+     * Plants a fresh forest for the next iteration and starts its history if recording.
+     */
+    @Setup(Level.Iteration)
+    public void plant() {
+        forest = new Forest("Benchmark");
+        forest.plant(size, BenchmarkRunner.SEED);
+        if (recording) {
+            forest.startHistory(ForestHistory.DEFAULT_BUDGET);
+        }
+    }
+
+    /**
+     * Grows every tree in the forest by one year.
+     */
+    @Benchmark
+    public void simulateYearlyGrowth() {
+        forest.simulateYearlyGrowth();
+    }
+}
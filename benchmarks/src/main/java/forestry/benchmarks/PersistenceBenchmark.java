@@ -0,0 +1,100 @@
+package forestry.benchmarks;
+
+import forestry.Forest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures saving and loading forests of increasing size in a temporary directory.
+ * Loads are measured both from the file, with the forest cache emptied first, and from the cache.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PersistenceBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private Path directory;
+    private String saveName;
+    private String loadName;
+    private Forest forest;
+
+    /**
+     * Plants the forest and saves a copy for the load benchmark.
+     *
+     * @throws IOException if the temporary directory cannot be created
+     */
+    @Setup(Level.Trial)
+    public void plant() throws IOException {
+        directory = Files.createTempDirectory("forest-benchmark");
+        saveName = directory.resolve("Saved").toString();
+        loadName = directory.resolve("Loaded").toString();
+        forest = new Forest("Benchmark");
+        forest.plant(size, BenchmarkRunner.SEED);
+        if (!Forest.save(loadName, forest)) {
+            throw new IOException("Could not save " + loadName);
+        }
+        // Date the file back so the cache does not treat it as just written
+        Path loadFile = Path.of(loadName + ".db");
+        Files.setLastModifiedTime(loadFile, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+    }
+
+    /**
+     * Deletes the temporary directory.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Saves the forest in the binary forest format.
+     *
+     * @return true if the forest was saved
+     */
+    @Benchmark
+    public boolean save() {
+        return Forest.save(saveName, forest);
+    }
+
+    /**
+     * Loads a saved forest from its file.
+     *
+     * @return the loaded forest
+     */
+    @Benchmark
+    public Forest load() {
+        Forest.getCache().invalidate(loadName + ".db");
+        return Forest.load(loadName);
+    }
+
+    /**
+     * Loads a saved forest that is already in the forest cache.
+     *
+     * @return the loaded forest
+     */
+    @Benchmark
+    public Forest loadCached() {
+        return Forest.load(loadName);
+    }
+}
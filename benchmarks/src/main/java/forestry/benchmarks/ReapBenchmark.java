@@ -0,0 +1,67 @@
+package forestry.benchmarks;
+
+import forestry.Forest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reaping the tallest trees of forests of increasing size.
+ * New trees are planted between 10' and 20', so reaping everything above REAP_HEIGHT removes about 2% of a fresh
+ * forest. Reaping again would find almost nothing, so every measurement is a single reap of a freshly planted forest.
+ * The reap report is formatted as usual but written to a discarding stream, so the terminal is not measured.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ReapBenchmark {
+    private static final double REAP_HEIGHT = 19.8;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private Forest forest;
+    private PrintStream console;
+
+    /**
+     * Sends console output to a discarding stream.
+     */
+    @Setup(Level.Trial)
+    public void silenceConsole() {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Plants a fresh forest for the next reap.
+     */
+    @Setup(Level.Iteration)
+    public void plant() {
+        forest = new Forest("Benchmark");
+        forest.plant(size, BenchmarkRunner.SEED);
+    }
+
+    /**
+     * Restores console output.
+     */
+    @TearDown(Level.Trial)
+    public void restoreConsole() {
+        System.setOut(console);
+    }
+
+    /**
+     * Reaps and replaces the trees taller than REAP_HEIGHT.
+     */
+    @Benchmark
+    public void reap() {
+        forest.reap(REAP_HEIGHT);
+    }
+}
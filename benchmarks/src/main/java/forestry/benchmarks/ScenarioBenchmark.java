@@ -0,0 +1,69 @@
+package forestry.benchmarks;
+
+import forestry.Forest;
+import forestry.HarvestScenarios;
+import forestry.ParallelForestEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures running a grid of harvest scenarios on an increasing number of threads.
+ * Every run copies the forest into buffers its thread already holds and shares nothing with the other runs,
+ * so the time should fall close to linearly until the threads outnumber the processors.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ScenarioBenchmark {
+    private static final double[] REAP_HEIGHTS = {20, 25, 30, 35};
+    private static final int YEARS = 10;
+    private static final int RUNS = 16;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    @Param({"100000"})
+    private int size;
+
+    private HarvestScenarios scenarios;
+    private ParallelForestEngine engine;
+
+    /**
+     * Plants the forest and sets up the scenario grid and the engine.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Forest forest = new Forest("Benchmark");
+        forest.plant(size, BenchmarkRunner.SEED);
+        scenarios = new HarvestScenarios(forest);
+        scenarios.setReapHeights(REAP_HEIGHTS);
+        scenarios.setYears(YEARS);
+        scenarios.setRuns(RUNS, BenchmarkRunner.SEED);
+        engine = new ParallelForestEngine(threads, ParallelForestEngine.DEFAULT_SEQUENTIAL_CUTOFF);
+    }
+
+    /**
+     * Stops the engine's threads.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    /**
+     * Runs every strategy with every seed.
+     *
+     * @return the report, so the runs are not optimized away
+     */
+    @Benchmark
+    public Object runScenarios() {
+        return scenarios.run(engine);
+    }
+}
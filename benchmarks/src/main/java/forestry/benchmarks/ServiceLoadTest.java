@@ -0,0 +1,235 @@
+package forestry.benchmarks;
+
+import forestry.Forest;
+import forestry.ForestService;
+import forestry.ParallelForestEngine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The ServiceLoadTest class drives a ForestService on localhost with many pipelined connections and reports
+ * the latency of each kind of command and the number of commands served per second.
+ * Each connection sends a window of commands without waiting, then reads their responses, so the latency of
+ * a command runs from sending its window to reading its own response.
+ * The commands are a mix of stats, page prints, adds, cuts and one-year growths drawn from a fixed seed.
+ *
+ * By default a service is started in this process over a planted forest. Give a port and a forest name to
+ * load a service that is already running, such as one started with {@code Forestry --serve}.
+ *
+ * Run: {@code java -cp benchmarks/target/benchmarks.jar forestry.benchmarks.ServiceLoadTest
+ * [connections] [requests] [depth] [trees] [port forest]}
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ServiceLoadTest {
+    private static final String[] VERBS = {"STATS", "PRINT", "ADD", "CUT", "GROW"};
+    private static final int[] WEIGHTS = {50, 25, 15, 5, 5};
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * Runs the load test.
+     *
+     * @param args the number of connections, the requests per connection, the pipeline depth,
+     *             the number of trees to plant, and optionally the port and forest of a running service
+     * @throws IOException if the service cannot be started
+     * @throws InterruptedException if the test is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int trees = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+
+        ForestService service = null;
+        ParallelForestEngine engine = null;
+        int port;
+        String forestName;
+        if (args.length > 5) {
+            port = Integer.parseInt(args[4]);
+            forestName = args[5];
+        } else {
+            engine = new ParallelForestEngine();
+            service = new ForestService(0, engine);
+            Forest forest = new Forest("Load");
+            forest.plant(trees, BenchmarkRunner.SEED);
+            service.add("Load", forest);
+            service.start();
+            port = service.getPort();
+            forestName = "Load";
+        }
+
+        System.out.printf("Load test: %d connections x %d requests, pipeline depth %d, forest %s on port %d%n",
+                connections, requests, depth, forestName, port);
+        try {
+            List<Future<long[][]>> clients = new ArrayList<>();
+            long start = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int client = 0; client < connections; client++) {
+                    long seed = BenchmarkRunner.SEED + client;
+                    clients.add(executor.submit(() -> runClient(port, forestName, requests, depth, trees, seed)));
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+
+            long[][] latencies = new long[VERBS.length][];
+            for (int verb = 0; verb < VERBS.length; verb++) {
+                latencies[verb] = new long[0];
+            }
+            for (Future<long[][]> client : clients) {
+                long[][] clientLatencies = client.get();
+                for (int verb = 0; verb < VERBS.length; verb++) {
+                    latencies[verb] = concat(latencies[verb], clientLatencies[verb]);
+                }
+            }
+            printReport(latencies, elapsed);
+        } catch (ExecutionException e) {
+            System.out.println("A client failed: " + e.getCause());
+        } finally {
+            if (service != null) {
+                service.close();
+            }
+            if (engine != null) {
+                engine.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Sends the requests of one connection in pipelined windows and times each response.
+     *
+     * @return the latencies in nanoseconds, one array per verb
+     */
+    private static long[][] runClient(int port, String forestName, int requests, int depth, int trees, long seed)
+            throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[][] latencies = new long[VERBS.length][requests];
+        int[] counts = new int[VERBS.length];
+        int[] window = new int[depth];
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+             InputStream input = new BufferedInputStream(socket.getInputStream())) {
+            socket.setTcpNoDelay(true);
+            for (int sent = 0; sent < requests; sent += depth) {
+                int size = Math.min(depth, requests - sent);
+                for (int index = 0; index < size; index++) {
+                    window[index] = pickVerb(random);
+                    output.write(command(window[index], forestName, trees, random).getBytes(StandardCharsets.US_ASCII));
+                }
+                long start = System.nanoTime();
+                output.flush();
+                for (int index = 0; index < size; index++) {
+                    readResponse(input);
+                    int verb = window[index];
+                    latencies[verb][counts[verb]++] = System.nanoTime() - start;
+                }
+            }
+            output.write("QUIT\n".getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+        }
+        for (int verb = 0; verb < VERBS.length; verb++) {
+            latencies[verb] = Arrays.copyOf(latencies[verb], counts[verb]);
+        }
+        return latencies;
+    }
+
+    private static int pickVerb(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        for (int verb = 0; verb < VERBS.length; verb++) {
+            roll -= WEIGHTS[verb];
+            if (roll < 0) {
+                return verb;
+            }
+        }
+        return 0;
+    }
+
+    private static String command(int verb, String forestName, int trees, SplittableRandom random) {
+        switch (VERBS[verb]) {
+            case "PRINT":
+                return "PRINT " + forestName + " " + random.nextInt(Math.max(1, trees - PAGE_SIZE)) + " " + PAGE_SIZE + "\n";
+            case "ADD":
+                return "ADD " + forestName + " 1\n";
+            case "CUT":
+                return "CUT " + forestName + " " + random.nextInt(Math.max(1, trees)) + "\n";
+            case "GROW":
+                return "GROW " + forestName + " 1\n";
+            default:
+                return "STATS " + forestName + "\n";
+        }
+    }
+
+    /**
+     * Reads one response: a status line, then the body if the status is OK.
+     */
+    private static void readResponse(InputStream input) throws IOException {
+        StringBuilder status = new StringBuilder();
+        int c;
+        while ((c = input.read()) != '\n') {
+            if (c < 0) {
+                throw new IOException("Connection closed by the service");
+            }
+            status.append((char) c);
+        }
+        if (!status.toString().startsWith("OK ")) {
+            throw new IOException("Service error: " + status);
+        }
+        long length = Long.parseLong(status.substring(3));
+        while (length > 0) {
+            long skipped = input.skip(length);
+            if (skipped <= 0) {
+                if (input.read() < 0) {
+                    throw new IOException("Connection closed by the service");
+                }
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+    }
+
+    private static long[] concat(long[] first, long[] second) {
+        long[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+
+    private static void printReport(long[][] latencies, long elapsed) {
+        System.out.printf("%-8s %10s %12s %12s%n", "Command", "Count", "p50", "p99");
+        long[] all = new long[0];
+        for (int verb = 0; verb < VERBS.length; verb++) {
+            printRow(VERBS[verb], latencies[verb]);
+            all = concat(all, latencies[verb]);
+        }
+        printRow("all", all);
+        System.out.printf("%d requests in %.3fs: %.0f ops/sec%n", all.length, elapsed / 1e9, all.length / (elapsed / 1e9));
+    }
+
+    private static void printRow(String name, long[] latencies) {
+        Arrays.sort(latencies);
+        System.out.printf("%-8s %10d %10.1fus %10.1fus%n", name, latencies.length,
+                percentile(latencies, 50) / 1e3, percentile(latencies, 99) / 1e3);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
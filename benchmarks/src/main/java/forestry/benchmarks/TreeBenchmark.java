@@ -0,0 +1,30 @@
+package forestry.benchmarks;
+
+import forestry.Tree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures making a single random tree, the cost behind every add and every reap replacement.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBenchmark {
+    /**
+     * Makes a random tree.
+     *
+     * @return the new tree
+     */
+    @Benchmark
+    public Tree makeRandomTree() {
+        return Tree.makeRandomTree();
+    }
+}
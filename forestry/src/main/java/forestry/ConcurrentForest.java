@@ -0,0 +1,375 @@
+package forestry;
+
+import java.io.IOException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The ConcurrentForest class lets one or more threads change a forest while other threads read it.
+ * Every change takes the write stamp of a StampedLock, so changes never overlap and a growth always finishes
+ * before the next change starts. Growth under the stamp still runs across the blocks of the parallel engine.
+ *
+ * Readers never take a lock, so a dashboard reading the forest can never hold up the simulation.
+ * Readers never change the forest either: every change removes the trees it cut before it releases the stamp,
+ * and a read that overlaps a change only copies, so at worst it reads a half-made change and throws it away.
+ * Small reads such as the size and the average height are optimistic: the values are read without a lock
+ * and then checked against the stamp. Large reads take a ForestView, a copy of the trees made the same way.
+ * While a change is in progress a reader gets the last complete view instead of waiting, so a reader sees
+ * the forest as it was before a growth or after it, never part way through.
+ *
+ * A forest that is changed without a pause would never let a large copy finish between changes. When a reader
+ * finds the forest busy it asks for a view instead, and the change in progress copies the forest as it finishes
+ * and publishes the copy as the latest view. The writer pays for one copy of the columns per request, and nothing
+ * when no one is reading.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ConcurrentForest {
+    private final Forest forest;
+    private final StampedLock lock;
+    private long epoch;
+    private volatile ForestView latest;
+    private volatile boolean viewRequested;
+
+    /**
+     * Constructs a concurrent forest around an existing forest.
+     * The forest must not be changed directly once it is wrapped.
+     *
+     * @param forest the forest to share
+     */
+    public ConcurrentForest(Forest forest) {
+        this.forest = forest;
+        this.lock = new StampedLock();
+        this.epoch = 0;
+        this.latest = forest.snapshot(0);
+        this.viewRequested = false;
+    }
+
+    /**
+     * Adds a random tree to the forest.
+     */
+    public void addTree() {
+        update(Forest::addTree);
+    }
+
+    /**
+     * Adds a tree to the forest.
+     *
+     * @param newTree the tree to add
+     */
+    public void addTree(Tree newTree) {
+        update(target -> target.addTree(newTree));
+    }
+
+    /**
+     * Plants random trees drawn from a seed.
+     *
+     * @param count the number of trees to plant
+     * @param seed the seed of the new trees
+     */
+    public void plant(int count, long seed) {
+        update(target -> target.plant(count, seed));
+    }
+
+    /**
+     * Cuts down the tree with the specified number without printing anything.
+     *
+     * @param treeNumber the number of the tree to cut
+     * @return true if the tree was cut, false if no tree has that number
+     */
+    public boolean cutTree(int treeNumber) {
+        return cutTrees(new int[] {treeNumber}) == 1;
+    }
+
+    /**
+     * Cuts down the trees with several numbers as one change, without printing anything.
+     * The cut trees are removed before the write stamp is released, like those of every other change.
+     *
+     * @param treeNumbers the numbers of the trees to cut, in any order
+     * @return the number of trees cut; numbers that do not exist are skipped
+     */
+    public int cutTrees(int[] treeNumbers) {
+        long stamp = lock.writeLock();
+        try {
+            int cut = forest.cutTrees(treeNumbers);
+            if (cut > 0) {
+                changed();
+            }
+            return cut;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Cuts down every tree that passes a filter as one change, without printing anything.
+     *
+     * @param filter the species, heights and planting years of the trees to cut
+     * @return the number of trees cut
+     */
+    public int cutTrees(TreeFilter filter) {
+        long stamp = lock.writeLock();
+        try {
+            int cut = forest.cutTrees(filter);
+            if (cut > 0) {
+                changed();
+            }
+            return cut;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds every tree in the specified columns as one change.
+     *
+     * @param newTrees the trees to add
+     */
+    public void addTrees(TreeColumns newTrees) {
+        update(target -> target.addTrees(newTrees));
+    }
+
+    /**
+     * Grows every tree by one year.
+     */
+    public void simulateYearlyGrowth() {
+        update(Forest::simulateYearlyGrowth);
+    }
+
+    /**
+     * Grows every tree by several years in one pass.
+     *
+     * @param years the number of years to grow
+     */
+    public void simulateGrowth(int years) {
+        update(target -> target.simulateGrowth(years));
+    }
+
+    /**
+     * Reaps the trees taller than a height and replaces them with new random trees, without printing anything.
+     *
+     * @param heightToReap the height above which trees are reaped
+     * @return the number of trees reaped
+     */
+    public int reap(double heightToReap) {
+        long stamp = lock.writeLock();
+        try {
+            int reaped = forest.reap(heightToReap, false);
+            changed();
+            return reaped;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Runs a change on the forest while no other change and no copy for a view can overlap it.
+     * Trees the action cuts are removed before the write stamp is released, even if the action fails.
+     * The action must not keep the forest after it returns.
+     *
+     * @param action the change to make
+     */
+    public void update(Consumer<Forest> action) {
+        long stamp = lock.writeLock();
+        try {
+            action.accept(forest);
+            changed();
+        } finally {
+            forest.compact();
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the trees the change cut, counts the change and publishes a view of it if a reader asked for one.
+     * Called while holding the write stamp, so no reader is ever left to remove cut trees itself.
+     */
+    private void changed() {
+        forest.compact();
+        epoch++;
+        if (viewRequested) {
+            viewRequested = false;
+            publish(forest.snapshot(epoch));
+        }
+    }
+
+    /**
+     * Gets a read-only copy of the forest.
+     * The copy is taken without a lock and kept only if no change was made while it was taken.
+     * If the forest has not changed since the last view, that view is returned without copying.
+     * If the forest is being changed, the last complete view is returned and the change publishes a newer
+     * one when it finishes, so the next call sees it.
+     *
+     * @return a view of the forest before or after every change, never during one
+     */
+    public ForestView view() {
+        ForestView current = latest;
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            long seen = epoch;
+            if (lock.validate(stamp)) {
+                if (seen == current.getEpoch()) {
+                    return current;
+                }
+                try {
+                    ForestView copy = forest.snapshot(seen);
+                    if (lock.validate(stamp)) {
+                        return publish(copy);
+                    }
+                } catch (RuntimeException e) {
+                    // A change replaced the columns while they were copied, so the copy is thrown away below
+                }
+            }
+        }
+        viewRequested = true;
+        return latest;
+    }
+
+    /**
+     * Keeps a view as the latest one unless a newer view was kept first.
+     * Publishing only compares two epochs, so a change that publishes is never held up for long.
+     *
+     * @return the latest view after publishing
+     */
+    private synchronized ForestView publish(ForestView view) {
+        if (view.getEpoch() > latest.getEpoch()) {
+            latest = view;
+        }
+        return latest;
+    }
+
+    /**
+     * Gets the number of trees in the forest.
+     *
+     * @return the number of trees, or the number in the latest view while a change is in progress
+     */
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int size = forest.size();
+            if (lock.validate(stamp)) {
+                return size;
+            }
+        }
+        return latest.size();
+    }
+
+    /**
+     * Gets the average height of the trees in the forest.
+     *
+     * @return the average height, or the average of the latest view while a change is in progress
+     */
+    public double calculateAverageHeight() {
+        return readOptimistically(forest::calculateAverageHeight, latest::calculateAverageHeight);
+    }
+
+    /**
+     * Gets a copy of the statistics of the forest, without copying the trees.
+     * After the shortest or tallest tree is cut, the extremes of the copy are those from before the cut
+     * and areExtremesKnown() returns false.
+     *
+     * @return a copy of the statistics, or of those of the latest view while a change is in progress
+     */
+    public ForestStatistics getStatistics() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                ForestStatistics copy = forest.copyStatistics();
+                if (lock.validate(stamp)) {
+                    return copy;
+                }
+            } catch (RuntimeException e) {
+                // A change was made while the statistics were copied, so the copy is thrown away below
+            }
+        }
+        return latest.copyStatistics();
+    }
+
+    /**
+     * Gets a copy of the tree at the specified position.
+     *
+     * @param position the position of the tree
+     * @return a copy of the tree, taken from the latest view while a change is in progress
+     */
+    public Tree getTree(int position) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Tree tree = forest.getTree(position);
+                if (lock.validate(stamp)) {
+                    return tree;
+                }
+            } catch (RuntimeException e) {
+                // The columns may have been replaced while they were read; a real error is thrown by the view
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        return latest.getTree(position);
+    }
+
+    /**
+     * Prints the forest as it is in a view, without holding up changes.
+     */
+    public void print() {
+        view().print();
+    }
+
+    /**
+     * Saves the forest as it is in a view, so changes carry on while the file is written.
+     *
+     * @param forestName the name of the file to save to
+     * @return true if the forest was saved, false otherwise
+     */
+    public boolean save(String forestName) {
+        return view().save(forestName);
+    }
+
+    /**
+     * Stops journaling the forest's changes once no change is in progress, forcing the journal to disk.
+     * Called when the forest is replaced, so its journal is not left open.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public void stopJournal() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            forest.stopJournal();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the number of changes made to the forest so far.
+     *
+     * @return the epoch of the forest, or of the latest view while a change is in progress
+     */
+    public long getEpoch() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            long seen = epoch;
+            if (lock.validate(stamp)) {
+                return seen;
+            }
+        }
+        return latest.getEpoch();
+    }
+
+    /**
+     * Reads a value without a lock, falling back to the latest view if a change overlaps the read.
+     */
+    private double readOptimistically(DoubleSupplier read, DoubleSupplier fallback) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            double value = read.getAsDouble();
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        }
+        return fallback.getAsDouble();
+    }
+}
@@ -0,0 +1,110 @@
+package forestry;
+
+import java.util.ArrayList;
+
+/**
+ * The CsvReadReport class describes the outcome of reading a forest from a CSV file.
+ * It counts the trees that were read and the rows that were skipped, and keeps a message for the first few
+ * skipped rows so a bad export does not flood the console.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class CsvReadReport {
+    /**
+     * The number of skipped rows for which a message is kept.
+     */
+    public static final int MAX_REPORTED_ERRORS = 20;
+
+    private final String fileName;
+    private int treeCount;
+    private long errorCount;
+    private final ArrayList<String> errors;
+
+    /**
+     * Constructs an empty report for the specified file.
+     *
+     * @param fileName the name of the CSV file that was read
+     */
+    public CsvReadReport(String fileName) {
+        this.fileName = fileName;
+        treeCount = 0;
+        errorCount = 0;
+        errors = new ArrayList<>();
+    }
+
+    /**
+     * Records that trees were read from the file.
+     *
+     * @param count the number of trees read
+     */
+    void addTrees(int count) {
+        treeCount += count;
+    }
+
+    /**
+     * Records a row that was skipped because it could not be read.
+     *
+     * @param lineNumber the line number of the row, starting at 1
+     * @param message a description of what is wrong with the row
+     */
+    void addError(long lineNumber, String message) {
+        errorCount++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("Line " + lineNumber + ": " + message);
+        }
+    }
+
+    /**
+     * Records rows that were skipped without keeping a message for them.
+     *
+     * @param count the number of skipped rows
+     */
+    void addUnreportedErrors(long count) {
+        errorCount += count;
+    }
+
+    /**
+     * Gets the number of trees read from the file.
+     *
+     * @return the number of trees read
+     */
+    public int getTreeCount() {
+        return treeCount;
+    }
+
+    /**
+     * Gets the number of rows skipped because they could not be read.
+     *
+     * @return the number of skipped rows
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Gets the messages kept for the first skipped rows.
+     *
+     * @return the messages for up to MAX_REPORTED_ERRORS skipped rows, in line order
+     */
+    public ArrayList<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Prints a message for each kept error, followed by the number of skipped rows.
+     * Nothing is printed if every row was read.
+     */
+    public void print() {
+        if (errorCount == 0) {
+            return;
+        }
+        for (String error : errors) {
+            System.out.println("Skipped " + fileName + " " + error);
+        }
+        if (errorCount > errors.size()) {
+            System.out.println("... and " + (errorCount - errors.size()) + " more");
+        }
+        System.out.println("Skipped " + errorCount + " malformed rows in " + fileName + "\n");
+    }
+}
@@ -0,0 +1,1058 @@
+package forestry;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The Forest class represents a collection of Tree objects, stored column by column in a TreeColumns.
+ * It allows users to add and remove trees from the forest, print the forest's details, and save and load the forest data.
+ * The application ensures that the forest's data integrity is maintained throughout operations.
+ *
+ * Every tree keeps its number for as long as it stands, so the numbers in one report still name the same
+ * trees after others are cut. Cutting a tree by number only marks it cut; the cut trees are removed together
+ * in one pass once they make up a quarter of the forest, or before anything reads the trees by position.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class Forest implements Serializable {
+    private static final long serialVersionUID = 0xbc87d86a62a2fed1L;
+
+    /**
+     * The serialized form keeps the original name and list of trees, so forests saved before the
+     * columnar storage was introduced can still be read.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("name", String.class),
+            new ObjectStreamField("trees", ArrayList.class)
+    };
+
+    /**
+     * The cache that loads read forest files through. Its budget in bytes is set with -Dforestry.cache.
+     */
+    private static final ForestCache CACHE = new ForestCache(Long.getLong("forestry.cache", ForestCache.DEFAULT_BUDGET));
+
+    /**
+     * The saver that writes forest files in the background.
+     */
+    private static final ForestSaver SAVER = new ForestSaver();
+
+    /**
+     * The share of the forest that may be marked cut before the cut trees are removed.
+     */
+    private static final double COMPACTION_RATIO = 0.25;
+
+    private String name;
+    private transient TreeColumns trees;
+    private transient HeightIndex heightIndex;
+    private transient ForestStatistics statistics;
+    private transient ParallelForestEngine engine;
+    private transient ForestJournal journal;
+    private transient ForestHistory history;
+    private transient long generation;
+    private transient boolean sharedTrees;
+    private transient BitSet cutMarks;
+    private transient int[] pendingCuts;
+    private transient int pendingCount;
+
+    /**
+     * Constructs a new Forest object with a null name and initializes the columns of trees.
+     */
+    public Forest() {
+        name = null;
+        trees = new TreeColumns();
+        heightIndex = new HeightIndex(trees);
+        statistics = new ForestStatistics();
+    }
+
+    /**
+     * Constructs a new Forest object with the specified name and initializes the columns of trees.
+     *
+     * @param name the name of the forest
+     */
+    public Forest(String name) {
+        this.name = name;
+        trees = new TreeColumns();
+        heightIndex = new HeightIndex(trees);
+        statistics = new ForestStatistics();
+    }
+
+    /**
+     * Constructs a new Forest object with the specified name that stores its trees in the given columns.
+     *
+     * @param name the name of the forest
+     * @param trees the columns holding the trees of the forest
+     */
+    Forest(String name, TreeColumns trees) {
+        this.name = name;
+        this.trees = trees;
+        heightIndex = new HeightIndex(trees);
+        statistics = ForestStatistics.measure(trees, 0);
+    }
+
+    /**
+     * Constructs a new Forest object with the specified name over the given columns and their statistics.
+     *
+     * @param name the name of the forest
+     * @param trees the columns holding the trees of the forest
+     * @param statistics the statistics of those trees
+     */
+    Forest(String name, TreeColumns trees, ForestStatistics statistics) {
+        this.name = name;
+        this.trees = trees;
+        heightIndex = new HeightIndex(trees);
+        this.statistics = statistics;
+    }
+
+    /**
+     * Prints information about the forest, including its name, the list of trees with their index,
+     * and the total number of trees along with their average height.
+     * Use a ForestReport directly to print only a summary, a page of trees, or the trees matching a filter.
+     */
+    public void print() {
+        new ForestReport(this).print();
+    }
+
+    /**
+     * Adds a randomly generated tree to the forest.
+     * This method generates a new random tree using the static method makeRandomTree() from the Tree class
+     * and adds it to the forest.
+     */
+    public void addTree() {
+        addTree(Tree.makeRandomTree());
+    }
+
+    /**
+     * Adds the specified tree to the forest.
+     *
+     * @param newTree the tree to add to the forest
+     */
+    public void addTree(Tree newTree) {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.ADD);
+        appendTree(newTree);
+        ForestMetrics.end(sample, name, 1, 0, 0);
+    }
+
+    /**
+     * Adds a tree to the end of the forest without measuring it as an operation of its own.
+     */
+    private void appendTree(Tree newTree) {
+        ownTrees();
+        trees.add(newTree);
+        heightIndex.added(trees.size() - 1, trees.size());
+        if (history != null) {
+            history.logPlant(trees);
+        }
+        statistics.add(TreeColumns.encodeSpecies(newTree.getSpecies()), newTree.getHeight());
+        if (journal != null) {
+            try {
+                journal.logAdd(TreeColumns.encodeSpecies(newTree.getSpecies()), newTree.getYearPlanting(),
+                        newTree.getHeight(), newTree.getGrowthRate());
+            } catch (IOException e) {
+                stopJournal(e);
+            }
+        }
+    }
+
+    /**
+     * Plants a number of random trees at once, drawn from a seed.
+     * The same seed always plants the same trees, whether or not the forest has a parallel engine
+     * and however many threads it uses, so a stand can be generated again exactly.
+     *
+     * @param count the number of trees to plant
+     * @param seed the seed of the random trees
+     */
+    public void plant(int count, long seed) {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.ADD);
+        if (engine != null) {
+            addTrees(engine.plant(count, seed));
+        } else {
+            addTrees(TreeColumns.plant(count, seed));
+        }
+        ForestMetrics.end(sample, name, count, 0, 0);
+    }
+
+    /**
+     * Adds every tree in the specified columns to the end of the forest.
+     *
+     * @param newTrees the trees to add to the forest
+     */
+    public void addTrees(TreeColumns newTrees) {
+        ownTrees();
+        trees.addAll(newTrees);
+        heightIndex.added(trees.size() - newTrees.size(), trees.size());
+        if (history != null) {
+            history.logPlants(trees, trees.size() - newTrees.size(), trees.size());
+        }
+        byte[] species = newTrees.speciesColumn();
+        double[] heights = newTrees.heightColumn();
+        for (int index = 0; index < newTrees.size(); index++) {
+            statistics.add(species[index], heights[index]);
+        }
+        if (journal != null) {
+            try {
+                for (int index = 0; index < newTrees.size(); index++) {
+                    journal.logAdd(TreeColumns.encodeSpecies(newTrees.getSpecies(index)),
+                            newTrees.getYearPlanting(index), newTrees.getHeight(index), newTrees.getGrowthRate(index));
+                }
+            } catch (IOException e) {
+                stopJournal(e);
+            }
+        }
+    }
+
+    /**
+     * Cuts down the tree with the specified number, as shown by print().
+     * The numbers of the other trees do not change.
+     *
+     * @param treeNumber the number of the tree to cut
+     */
+    public void cutTree(int treeNumber) {
+        if (cutTrees(new int[] {treeNumber}) == 1) {
+            System.out.println();
+        } else {
+            System.out.println("Tree number " + treeNumber + " does not exist");
+        }
+    }
+
+    /**
+     * Cuts down the trees with the specified numbers, without printing anything.
+     * Each cut only marks its tree, so cutting thousands of trees costs one pass over the forest
+     * when the marked trees are removed, not one shift of the later trees per cut.
+     *
+     * @param treeNumbers the numbers of the trees to cut, in any order
+     * @return the number of trees cut; numbers that do not exist or were already cut are skipped
+     */
+    public int cutTrees(int[] treeNumbers) {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.CUT);
+        int cut = 0;
+        for (int treeNumber : treeNumbers) {
+            int position = trees.indexOfId(treeNumber);
+            if (position >= 0 && markCut(position)) {
+                cut++;
+            }
+        }
+        if (pendingCount > trees.size() * COMPACTION_RATIO) {
+            compact();
+        }
+        ForestMetrics.end(sample, name, cut, 0, 0);
+        return cut;
+    }
+
+    /**
+     * Cuts down every tree that passes a filter, without printing anything.
+     * The trees are found in one pass over the columns and removed in a second pass.
+     *
+     * @param filter the species, heights and planting years of the trees to cut
+     * @return the number of trees cut
+     */
+    public int cutTrees(TreeFilter filter) {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.CUT);
+        compact();
+        int[] positions = filter.findMatches(trees);
+        removeSorted(positions);
+        ForestMetrics.end(sample, name, positions.length, 0, 0);
+        return positions.length;
+    }
+
+    /**
+     * Marks the tree at a position as cut and takes it out of the statistics. The columns are not changed.
+     *
+     * @return false if the tree was already marked
+     */
+    private boolean markCut(int position) {
+        if (cutMarks == null) {
+            cutMarks = new BitSet(trees.size());
+            pendingCuts = new int[16];
+        }
+        if (cutMarks.get(position)) {
+            return false;
+        }
+        cutMarks.set(position);
+        if (pendingCount == pendingCuts.length) {
+            pendingCuts = Arrays.copyOf(pendingCuts, pendingCount * 2);
+        }
+        pendingCuts[pendingCount++] = position;
+        if (history != null) {
+            history.logCut(trees.getId(position));
+        }
+        statistics.remove(trees.speciesColumn()[position], trees.getHeight(position));
+        return true;
+    }
+
+    /**
+     * Removes the trees marked cut in a single compaction pass and journals their cuts.
+     * Called before anything reads the trees by position, so callers never see a marked tree.
+     */
+    void compact() {
+        if (pendingCount == 0) {
+            return;
+        }
+        int[] positions = Arrays.copyOf(pendingCuts, pendingCount);
+        Arrays.sort(positions);
+        pendingCount = 0;
+        cutMarks.clear();
+        ownTrees();
+        trees.removeAll(positions, positions.length);
+        heightIndex.removedAll(positions, positions.length);
+        logCuts(positions);
+    }
+
+    /**
+     * Gets the position of the tree with the specified number.
+     *
+     * @param treeNumber the number of the tree, as shown by print()
+     * @return the position of the tree, or -1 if no standing tree has that number
+     */
+    public int findTree(int treeNumber) {
+        compact();
+        return trees.indexOfId(treeNumber);
+    }
+
+    /**
+     * Gets the number of the tree at the specified position.
+     *
+     * @param position the position of the tree
+     * @return the number of the tree, which stays the same while other trees are cut
+     */
+    public int getTreeNumber(int position) {
+        compact();
+        return trees.getId(position);
+    }
+
+    /**
+     * Removes the tree at the specified position without printing anything.
+     *
+     * @param position the position of the tree to remove
+     * @return true if the tree was removed, false if there is no tree at that position
+     */
+    boolean removeTree(int position) {
+        compact();
+        if (position < 0 || position >= trees.size()) {
+            return false;
+        }
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.CUT);
+        ownTrees();
+        if (history != null) {
+            history.logCut(trees.getId(position));
+        }
+        statistics.remove(trees.speciesColumn()[position], trees.getHeight(position));
+        trees.remove(position);
+        heightIndex.removed(position);
+        if (journal != null) {
+            try {
+                journal.logCut(position);
+            } catch (IOException e) {
+                stopJournal(e);
+            }
+        }
+        ForestMetrics.end(sample, name, 1, 0, 0);
+        return true;
+    }
+
+    /**
+     * Removes the trees at the specified positions in a single compaction pass, without printing anything.
+     * The positions are those before any tree is removed; positions that do not exist and repeated positions are skipped.
+     *
+     * @param positions the positions of the trees to remove, in any order
+     * @return the number of trees removed
+     */
+    int removeTrees(int[] positions) {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.CUT);
+        compact();
+        int[] sorted = Arrays.stream(positions).filter(position -> position >= 0 && position < trees.size())
+                .sorted().distinct().toArray();
+        removeSorted(sorted);
+        ForestMetrics.end(sample, name, sorted.length, 0, 0);
+        return sorted.length;
+    }
+
+    /**
+     * Removes the trees at distinct positions in increasing order in a single compaction pass and journals their cuts.
+     */
+    private void removeSorted(int[] positions) {
+        if (history != null) {
+            history.logCuts(trees, positions);
+        }
+        removeAll(positions);
+        logCuts(positions);
+    }
+
+    /**
+     * Journals the cuts of trees removed together, given their positions in increasing order.
+     */
+    private void logCuts(int[] positions) {
+        if (journal != null) {
+            try {
+                // Cutting from the last position down gives the same forest one cut at a time
+                for (int index = positions.length - 1; index >= 0; index--) {
+                    journal.logCut(positions[index]);
+                }
+            } catch (IOException e) {
+                stopJournal(e);
+            }
+        }
+    }
+
+    /**
+     * Simulates yearly growth for all trees in the forest.
+     * This method grows each tree in the forest and measures the forest's statistics in the same pass.
+     */
+    public void simulateYearlyGrowth() {
+        grow(1);
+    }
+
+    /**
+     * Simulates several years of growth for all trees in the forest in a single pass.
+     * Instead of growing the trees once per year, each tree's height is multiplied by its compound growth
+     * over the whole span, so the cost does not depend on the number of years.
+     *
+     * @param years the number of years to grow
+     */
+    public void simulateGrowth(int years) {
+        if (years < 0) {
+            throw new IllegalArgumentException("Years must not be negative: " + years);
+        }
+        if (years > 0) {
+            grow(years);
+        }
+    }
+
+    /**
+     * Grows every tree and measures the statistics again in one pass over the trees.
+     */
+    private void grow(int years) {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.GROW);
+        compact();
+        ownTrees();
+        if (engine != null) {
+            statistics = engine.measure(trees, years);
+        } else {
+            statistics.remeasure(trees, years);
+        }
+        heightIndex.grew();
+        if (history != null) {
+            history.logGrow(trees, years, statistics.getMean());
+        }
+        logGrow(years);
+        ForestMetrics.end(sample, name, trees.size(), 0, 0);
+    }
+
+    /**
+     * Simulates several years of growth and reports which trees grow past a reap height along the way.
+     * The crossings are worked out from each tree's starting height and growth rate, without stepping through the years.
+     *
+     * @param years the number of years to grow
+     * @param reapHeight the height to report crossings of
+     * @return the trees that grow past the reap height, with the year each one passes it
+     */
+    public GrowthCrossings simulateGrowth(int years, double reapHeight) {
+        compact();
+        GrowthCrossings crossings = trees.findCrossings(reapHeight, years, 0, trees.size());
+        simulateGrowth(years);
+        return crossings;
+    }
+
+    /**
+     * Reaps trees in the forest that are taller than the specified height.
+     * This method removes trees taller than the specified height and replaces them with new randomly generated trees.
+     * The trees to reap are found through the height index, removed together in a single compaction pass,
+     * and their replacements are then added to the end of the forest.
+     *
+     * @param heightToReap the height above which trees should be reaped
+     */
+    public void reap(double heightToReap) {
+        reap(heightToReap, true);
+        System.out.println();
+    }
+
+    /**
+     * Reaps trees in the forest that are taller than the specified height, replacing them with new random trees.
+     *
+     * @param heightToReap the height above which trees should be reaped
+     * @param printReaped true to print each reaped tree and its replacement
+     * @return the number of trees reaped
+     */
+    int reap(double heightToReap, boolean printReaped) {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.REAP);
+        compact();
+        int[] tallTrees = heightIndex.findTallerThan(heightToReap);
+        Tree[] replacements = new Tree[tallTrees.length];
+
+        for (int reaped = 0; reaped < tallTrees.length; reaped++) {
+            int index = tallTrees[reaped];
+            replacements[reaped] = Tree.makeRandomTree();
+            if (printReaped) {
+                System.out.printf("Reaping the tall tree  %-7s %5d  %6.2f'  %4.1f%%%n",
+                        trees.getSpecies(index),
+                        trees.getYearPlanting(index),
+                        trees.getHeight(index),
+                        trees.getGrowthRate(index));
+                System.out.printf("Replaced with new tree %-7s %5d  %6.2f'  %4.1f%%%n",
+                        replacements[reaped].getSpecies(),
+                        replacements[reaped].getYearPlanting(),
+                        replacements[reaped].getHeight(),
+                        replacements[reaped].getGrowthRate());
+            }
+        }
+
+        if (history != null) {
+            history.logReap(trees, tallTrees);
+        }
+        removeAll(tallTrees);
+        if (journal != null && tallTrees.length > 0) {
+            // The replacement trees are journaled as adds by appendTree()
+            try {
+                journal.logReap(heightToReap, tallTrees.length);
+            } catch (IOException e) {
+                stopJournal(e);
+            }
+        }
+        for (Tree replacement : replacements) {
+            appendTree(replacement);
+        }
+        ForestMetrics.end(sample, name, trees.size(), 0, tallTrees.length);
+        return tallTrees.length;
+    }
+
+    /**
+     * Removes every tree taller than the specified height without replacing it or printing anything.
+     * This is how a journaled reap is replayed; the replacement trees follow as separate adds.
+     *
+     * @param heightToReap the height above which trees are removed
+     * @return the number of trees removed
+     */
+    int removeTallerThan(double heightToReap) {
+        compact();
+        int[] tallTrees = heightIndex.findTallerThan(heightToReap);
+        if (history != null) {
+            history.logReap(trees, tallTrees);
+        }
+        removeAll(tallTrees);
+        return tallTrees.length;
+    }
+
+    /**
+     * Removes the trees at the specified positions in a single compaction pass.
+     */
+    private void removeAll(int[] positions) {
+        ownTrees();
+        for (int position : positions) {
+            statistics.remove(trees.speciesColumn()[position], trees.getHeight(position));
+        }
+        trees.removeAll(positions, positions.length);
+        heightIndex.removedAll(positions, positions.length);
+    }
+
+    /**
+     * Counts the trees in the forest that are taller than the specified height.
+     *
+     * @param height the height a tree must exceed
+     * @return the number of trees taller than the height
+     */
+    public int countTallerThan(double height) {
+        compact();
+        return heightIndex.countTallerThan(height);
+    }
+
+    /**
+     * Finds the trees in the forest that are taller than the specified height.
+     *
+     * @param height the height a tree must exceed
+     * @return the positions of the tall trees, in increasing order
+     */
+    public int[] findTallerThan(double height) {
+        compact();
+        return heightIndex.findTallerThan(height);
+    }
+
+    /**
+     * Finds the tallest trees in the forest.
+     *
+     * @param count the number of trees to find
+     * @return the positions of up to count trees, tallest first
+     */
+    public int[] findTallest(int count) {
+        compact();
+        return heightIndex.tallest(count);
+    }
+
+    /**
+     * Prints the trees taller than the specified height, with their numbers, and how many there are.
+     *
+     * @param height the height a tree must exceed
+     */
+    public void printTallerThan(double height) {
+        int[] tallTrees = findTallerThan(height);
+        for (int index : tallTrees) {
+            System.out.printf("%4d %s%n", trees.getId(index), trees.toTree(index));
+        }
+        System.out.printf("There are %d trees taller than %.2f'%n%n", tallTrees.length, height);
+    }
+
+    /**
+     * Calculates the average height of all trees in the forest.
+     * The total height is kept up to date as trees are added, cut and grown, so this does not scan the trees.
+     *
+     * @return the average height of the trees in the forest
+     */
+    public double calculateAverageHeight() {
+        return statistics.getMean();
+    }
+
+    /**
+     * Gets the statistics of the forest's tree heights: totals, extremes, percentiles and per-species averages.
+     * If the shortest or tallest tree was cut, the new extremes are looked up in the height index first.
+     *
+     * @return the statistics of the forest, kept up to date as the forest changes
+     */
+    public ForestStatistics getStatistics() {
+        compact();
+        if (!statistics.areExtremesKnown()) {
+            int shortest = heightIndex.shortest();
+            int[] tallest = heightIndex.tallest(1);
+            if (shortest >= 0) {
+                statistics.setExtremes(trees.getHeight(shortest), trees.getHeight(tallest[0]));
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Gets a list of the trees in the forest.
+     * The trees are copies of the stored columns, so changing the list or its trees does not change the forest.
+     *
+     * @return a list of copies of the trees in the forest
+     */
+    public ArrayList<Tree> getTrees() {
+        compact();
+        return trees.toTrees();
+    }
+
+    /**
+     * Gets a copy of the tree at the specified position in the forest, without removing trees marked cut.
+     *
+     * @param position the position of the tree
+     * @return a copy of the tree at that position
+     */
+    public Tree getTree(int position) {
+        return trees.toTree(columnIndex(position));
+    }
+
+    /**
+     * Finds where the tree at a position among the standing trees is in the columns, skipping trees marked cut.
+     * Only reads the forest, so a reader that may overlap a change never compacts the columns under the writer.
+     *
+     * @param position the position of the tree among the trees not marked cut
+     * @return the index of the tree in the columns
+     */
+    private int columnIndex(int position) {
+        int index = position;
+        if (pendingCount > 0 && position >= 0) {
+            for (int cut = cutMarks.nextSetBit(0); cut >= 0 && cut <= index; cut = cutMarks.nextSetBit(cut + 1)) {
+                index++;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Gets the number of trees in the forest.
+     *
+     * @return the number of trees in the forest
+     */
+    public int size() {
+        return trees.size() - pendingCount;
+    }
+
+    /**
+     * Sets the engine used to run growth and averages in parallel.
+     *
+     * @param engine the parallel engine to use, or null to run everything on the calling thread
+     */
+    public void setEngine(ParallelForestEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Gets the engine used to run bulk operations in parallel.
+     *
+     * @return the parallel engine, or null if the forest runs sequentially
+     */
+    public ParallelForestEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Gets the cache that forest files are loaded through.
+     *
+     * @return the shared forest cache
+     */
+    public static ForestCache getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Gets the saver that writes forest files in the background.
+     *
+     * @return the shared forest saver
+     */
+    public static ForestSaver getSaver() {
+        return SAVER;
+    }
+
+    /**
+     * Gets the columns that store the trees of the forest.
+     *
+     * @return the columns of the forest
+     */
+    TreeColumns getColumns() {
+        compact();
+        return trees;
+    }
+
+    /**
+     * Copies the trees and statistics of the forest into a read-only view that shares nothing with the forest.
+     *
+     * @param epoch the number of changes made to the forest so far
+     * @return a view of the forest as it is now
+     */
+    ForestView snapshot(long epoch) {
+        return new ForestView(copy(), epoch);
+    }
+
+    /**
+     * Copies the name, trees, statistics and checkpoint generation of the forest into a new forest
+     * with no engine and no journal. Trees marked cut are left out of the copy rather than removed from
+     * this forest, so copying only reads the forest and may be done by a reader that overlaps a change.
+     *
+     * @return a copy that shares nothing with this forest
+     */
+    Forest copy() {
+        TreeColumns standing = trees.copy();
+        if (pendingCount > 0) {
+            int[] positions = Arrays.copyOf(pendingCuts, pendingCount);
+            Arrays.sort(positions);
+            standing.removeAll(positions, positions.length);
+        }
+        Forest copy = new Forest(name, standing, copyStatistics());
+        copy.generation = generation;
+        return copy;
+    }
+
+    /**
+     * Makes a forest with the same name, trees, statistics and checkpoint generation that shares this forest's
+     * columns instead of copying them. Whichever of the two forests changes its trees first copies the columns
+     * then, so sharing costs nothing until a change is made and neither forest ever sees the other's changes.
+     *
+     * @return a forest equal to this one with no engine and no journal
+     */
+    Forest share() {
+        compact();
+        Forest copy = new Forest(name, trees, copyStatistics());
+        copy.generation = generation;
+        copy.sharedTrees = true;
+        sharedTrees = true;
+        return copy;
+    }
+
+    /**
+     * Copies the columns before they are changed if another forest shares them.
+     * Every change to the trees goes through here first.
+     */
+    private void ownTrees() {
+        if (sharedTrees) {
+            trees = trees.copy();
+            heightIndex = new HeightIndex(heightIndex, trees);
+            sharedTrees = false;
+        }
+    }
+
+    /**
+     * Copies the statistics of the forest without looking up extremes that are out of date.
+     *
+     * @return new statistics equal to those of the forest
+     */
+    ForestStatistics copyStatistics() {
+        ForestStatistics copy = new ForestStatistics();
+        copy.merge(statistics);
+        return copy;
+    }
+
+    /**
+     * Saves the forest data to a file in the binary forest format.
+     * If the forest is journaling to that file, only the changes since the last save are forced to the journal,
+     * and the whole forest is written as a new checkpoint once the journal grows larger than a snapshot.
+     * Otherwise the file is written to a temporary file and renamed into place, so a failed save leaves the old file.
+     *
+     * @param forestName the name of the file to save the forest data to
+     * @param theForest the Forest object to save
+     * @return true if the forest data is successfully saved, false otherwise
+     */
+    public static boolean save(String forestName, Forest theForest) {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.SAVE);
+        try {
+            theForest.compact();
+            ForestJournal journal = theForest.journal;
+            long written;
+            if (journal != null && journal.getForestName().equals(forestName)) {
+                if (journal.needsCheckpoint(theForest.size())) {
+                    written = theForest.checkpoint(forestName);
+                } else {
+                    written = journal.getPendingBytes();
+                    journal.sync();
+                }
+            } else {
+                SAVER.await(forestName + ".db");
+                CACHE.invalidate(forestName + ".db");
+                written = ForestFile.writeAtomically(forestName + ".db", theForest, 0);
+            }
+            ForestMetrics.end(sample, theForest.name, theForest.size(), written, 0);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving: " + e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Save interrupted");
+            return false;
+        }
+    }
+
+    /**
+     * Saves the forest data to a file on a background thread, so the forest can keep growing and reaping
+     * while the file is written. The forest is saved as it is when this is called; its columns are shared with
+     * the save rather than copied, and are only copied if the forest changes them before the save finishes.
+     * The file is written to a temporary file and renamed into place, and saves to the same file that overlap
+     * are merged into one write of the newest forest.
+     * A forest journaling to the file is saved on the calling thread, since that only forces the journal.
+     *
+     * @param forestName the name of the file to save the forest data to
+     * @param theForest the Forest object to save
+     * @return a future completed with true if the forest data is saved, false otherwise
+     */
+    public static CompletableFuture<Boolean> saveAsync(String forestName, Forest theForest) {
+        ForestJournal journal = theForest.journal;
+        if (journal != null && journal.getForestName().equals(forestName)) {
+            return CompletableFuture.completedFuture(save(forestName, theForest));
+        }
+        return SAVER.save(forestName + ".db", theForest);
+    }
+
+    /**
+     * Loads the forest data from a file.
+     * Both the binary forest format and the Java serialization format of earlier versions can be loaded.
+     * If the file has a journal, the journaled changes are replayed and the forest keeps journaling to it.
+     * The file is read through the forest cache, so loading an unchanged file again only copies its trees;
+     * the journal is always read from disk. A background save of the same file is waited for first.
+     *
+     * @param fileName the name of the file to load the forest data from
+     * @return the loaded forest if the forest data is successfully loaded, null otherwise
+     */
+    public static Forest load(String fileName) {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.LOAD);
+        try {
+            SAVER.await(fileName + ".db");
+            Forest forest = CACHE.read(fileName + ".db");
+            forest.journal = ForestJournal.replay(fileName, forest);
+            if (sample != null) {
+                ForestMetrics.end(sample, forest.name, forest.size(), Files.size(Path.of(fileName + ".db")), 0);
+            }
+            return forest;
+        } catch (IOException e) {
+            System.out.println("Error opening/reading " + fileName + ".db");
+            System.out.println("Old forest retained");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Load interrupted");
+            System.out.println("Old forest retained");
+            return null;
+        }
+    }
+
+    /**
+     * Starts journaling the forest to the specified file.
+     * The whole forest is written first as a checkpoint, and from then on every add, cut, grow and reap is
+     * appended to the journal, so saving only costs as much as the changes made since the last save.
+     *
+     * @param forestName the name of the file to journal to
+     * @throws IOException if the checkpoint or the journal cannot be written
+     */
+    public void startJournal(String forestName) throws IOException {
+        checkpoint(forestName);
+    }
+
+    /**
+     * Stops journaling, writing any changes that are still pending to the journal first.
+     * Trees marked cut are removed first, so their cuts are journaled before the journal is closed.
+     *
+     * @throws IOException if the pending changes cannot be written
+     */
+    public void stopJournal() throws IOException {
+        compact();
+        if (journal != null) {
+            ForestJournal closing = journal;
+            journal = null;
+            closing.close();
+        }
+    }
+
+    /**
+     * Starts recording the history of the forest, with the forest as it is now as year 0.
+     * From then on every growth, plant, cut and reap is recorded, so the height of a tree in any later year
+     * and the yearly totals of the forest can be looked up. Recording again starts a new history.
+     *
+     * @param budget the most bytes the compressed history of single trees may take
+     */
+    public void startHistory(long budget) {
+        compact();
+        history = new ForestHistory(trees, statistics.getMean(), budget);
+    }
+
+    /**
+     * Stops recording the history of the forest and drops what was recorded.
+     */
+    public void stopHistory() {
+        history = null;
+    }
+
+    /**
+     * Gets the history of the forest.
+     *
+     * @return the history being recorded, or null if the forest is not recording one
+     */
+    public ForestHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Checks whether the forest is journaling its changes.
+     *
+     * @return true if the forest has a journal
+     */
+    public boolean isJournaling() {
+        return journal != null;
+    }
+
+    /**
+     * Writes the whole forest as a new checkpoint and starts an empty journal after it.
+     * The snapshot is written before the old journal is dropped, so a failure leaves the old journal in use.
+     *
+     * @return the number of bytes in the snapshot
+     */
+    private long checkpoint(String forestName) throws IOException {
+        long next = generation + 1;
+        CACHE.invalidate(forestName + ".db");
+        long written = ForestFile.writeAtomically(forestName + ".db", this, next);
+        generation = next;
+        if (journal != null) {
+            journal.discard();
+        }
+        journal = ForestJournal.create(forestName, next);
+        return written;
+    }
+
+    /**
+     * Stops journaling after a journal write failed, so the next save writes the whole forest.
+     */
+    private void stopJournal(IOException cause) {
+        System.out.println("Error writing journal: " + cause.getMessage());
+        System.out.println("Journal stopped, the next save writes the whole forest");
+        ForestJournal failed = journal;
+        journal = null;
+        try {
+            failed.discard();
+        } catch (IOException e) {
+            // the journal is already unusable
+        }
+    }
+
+    private void logGrow(int years) {
+        if (journal != null) {
+            try {
+                journal.logGrow(years);
+            } catch (IOException e) {
+                stopJournal(e);
+            }
+        }
+    }
+
+    /**
+     * Gets the checkpoint generation of the snapshot this forest was loaded from or last checkpointed to.
+     *
+     * @return the checkpoint generation, or 0 if the forest is not tied to a journal
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Sets the checkpoint generation of the snapshot this forest was loaded from.
+     *
+     * @param generation the checkpoint generation
+     */
+    void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Gets a new Forest object.
+     *
+     * @return a new Forest object
+     */
+    public static Forest getForest() {
+        return new Forest();
+    }
+
+    /**
+     * Writes the forest in its original serialized form: the name followed by a list of trees.
+     *
+     * @param output the stream to write to
+     * @throws IOException if the forest cannot be written
+     */
+    private void writeObject(ObjectOutputStream output) throws IOException {
+        compact();
+        ObjectOutputStream.PutField fields = output.putFields();
+        fields.put("name", name);
+        fields.put("trees", trees.toTrees());
+        output.writeFields();
+    }
+
+    /**
+     * Reads a forest in its original serialized form and stores its trees in columns.
+     *
+     * @param input the stream to read from
+     * @throws IOException if the forest cannot be read
+     * @throws ClassNotFoundException if a class in the stream cannot be found
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = input.readFields();
+        name = (String) fields.get("name", null);
+        ArrayList<Tree> list = (ArrayList<Tree>) fields.get("trees", null);
+        trees = new TreeColumns(list == null ? 0 : list.size());
+        if (list != null) {
+            for (Tree tree : list) {
+                trees.add(tree);
+            }
+        }
+        heightIndex = new HeightIndex(trees);
+        statistics = ForestStatistics.measure(trees, 0);
+    }
+
+    /**
+     * Gets the name of the forest.
+     *
+     * @return the name of the forest
+     */
+    public String getName() {
+        return name;
+    }
+}
+
@@ -0,0 +1,231 @@
+package forestry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The ForestCache class keeps recently read forest files in memory, so loading the same file again does not
+ * read or decode the file.
+ * Entries are keyed by the absolute path of the file and checked against the file's modification time, size and
+ * file key on every read, so a file changed on disk is always read again. A file modified within the last
+ * RACY_MILLIS when it is read is not cached, because a second change within the same clock tick could keep the
+ * same modification time and size.
+ *
+ * The cache holds at most its memory budget of trees, and drops the least recently read files first.
+ * Every read gets its own forest, which shares the cached trees until it first changes them and then copies them,
+ * so a load answered from the cache takes microseconds and changing a loaded forest never changes the cache.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestCache {
+    /**
+     * The default memory budget in bytes, used when -Dforestry.cache is not set.
+     */
+    public static final long DEFAULT_BUDGET = 256L << 20;
+
+    /**
+     * How recently a file may have been modified and still be cached, in milliseconds.
+     */
+    public static final long RACY_MILLIS = 2000;
+
+    /**
+     * The estimated bytes held by an entry besides its trees.
+     */
+    private static final long ENTRY_OVERHEAD = 256;
+
+    private final long budget;
+    private final LinkedHashMap<Path, Entry> entries;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long stale;
+    private long evictions;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param budget the most bytes of trees to keep, or 0 to cache nothing
+     */
+    public ForestCache(long budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Budget must not be negative: " + budget);
+        }
+        this.budget = budget;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Reads a forest file through the cache.
+     *
+     * @param fileName the name of the file, including its extension
+     * @return a new forest that the caller may change freely
+     * @throws IOException if the file cannot be read or is not a forest file
+     */
+    public Forest read(String fileName) throws IOException {
+        Path path = Path.of(fileName).toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            if (entry != null) {
+                if (entry.matches(attributes)) {
+                    hits++;
+                    return entry.forest.share();
+                }
+                stale++;
+                remove(path);
+            }
+            misses++;
+        }
+
+        long readStart = System.currentTimeMillis();
+        Forest forest = ForestFile.read(fileName);
+        long cost = (long) forest.size() * TreeColumns.BYTES_PER_TREE + ENTRY_OVERHEAD;
+        boolean settled = attributes.lastModifiedTime().toMillis() < readStart - RACY_MILLIS;
+        if (settled && cost <= budget) {
+            // The file may have changed while it was read; only keep the forest if it still matches
+            BasicFileAttributes after = Files.readAttributes(path, BasicFileAttributes.class);
+            Entry entry = new Entry(forest, attributes, cost);
+            if (entry.matches(after)) {
+                synchronized (this) {
+                    remove(path);
+                    entries.put(path, entry);
+                    bytes += cost;
+                    evict();
+                }
+                return forest.share();
+            }
+        }
+        return forest;
+    }
+
+    /**
+     * Drops a file from the cache. Called after the file is written, so the next read does not have to
+     * rely on the modification time alone.
+     *
+     * @param fileName the name of the file, including its extension
+     */
+    public synchronized void invalidate(String fileName) {
+        remove(Path.of(fileName).toAbsolutePath().normalize());
+    }
+
+    /**
+     * Drops every file from the cache. The hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Gets the number of reads answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of reads that had to read the file.
+     *
+     * @return the number of misses, including stale entries
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of cached files found to have changed on disk.
+     *
+     * @return the number of stale entries dropped
+     */
+    public synchronized long getStaleCount() {
+        return stale;
+    }
+
+    /**
+     * Gets the number of files dropped to stay within the budget.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the estimated number of bytes held by the cache.
+     *
+     * @return the bytes in use
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the memory budget of the cache.
+     *
+     * @return the most bytes the cache keeps
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Prints the counts and memory use of the cache.
+     */
+    public synchronized void print() {
+        System.out.printf("Forest cache: %d files, %d hits, %d misses, %d stale, %d evicted, %.1f of %.1f MB%n%n",
+                entries.size(), hits, misses, stale, evictions, bytes / 1048576.0, budget / 1048576.0);
+    }
+
+    private void remove(Path path) {
+        Entry removed = entries.remove(path);
+        if (removed != null) {
+            bytes -= removed.cost;
+        }
+    }
+
+    /**
+     * Drops the least recently read files until the cache is within its budget.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Path, Entry>> oldest = entries.entrySet().iterator();
+        while (bytes > budget && oldest.hasNext()) {
+            bytes -= oldest.next().getValue().cost;
+            oldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * A cached forest and the attributes its file had when it was read.
+     */
+    private static class Entry {
+        private final Forest forest;
+        private final FileTime modified;
+        private final long size;
+        private final Object fileKey;
+        private final long cost;
+
+        Entry(Forest forest, BasicFileAttributes attributes, long cost) {
+            this.forest = forest;
+            this.modified = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            this.fileKey = attributes.fileKey();
+            this.cost = cost;
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return modified.equals(attributes.lastModifiedTime()) && size == attributes.size()
+                    && Objects.equals(fileKey, attributes.fileKey());
+        }
+    }
+}
@@ -0,0 +1,538 @@
+package forestry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The ForestCsvReader class reads trees from a CSV file in the species,year,height,growthRate layout.
+ * The file is memory-mapped and split into chunks at line boundaries, and the chunks are parsed in parallel.
+ * Fields are parsed straight from the mapped bytes, so a row creates no Strings unless it is malformed.
+ * Malformed rows and unknown species are skipped and reported with their line numbers.
+ * An empty species field is read as a tree without a species, as ForestCsvWriter writes such trees.
+ * A file whose name ends in .gz is decompressed as it is read and parsed one chunk at a time on the calling thread.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestCsvReader {
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int MAX_CHUNK_SIZE = 1 << 28;
+    private static final int FIELD_COUNT = 4;
+
+    /**
+     * Powers of ten that are exact as doubles, used by the fast path for parsing decimals.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private static final Tree.TreeSpecies[] SPECIES = Tree.TreeSpecies.values();
+    private static final byte[][] SPECIES_NAMES = new byte[SPECIES.length][];
+
+    static {
+        for (int code = 0; code < SPECIES.length; code++) {
+            SPECIES_NAMES[code] = SPECIES[code].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final int parallelism;
+
+    /**
+     * Constructs a reader that parses chunks on every available processor.
+     */
+    public ForestCsvReader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a reader that parses chunks on the specified number of threads.
+     *
+     * @param parallelism the number of threads used to parse chunks
+     */
+    public ForestCsvReader(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Reads every tree in a CSV file and adds them to the end of a forest, in file order.
+     *
+     * @param fileName the name of the CSV file, including its extension
+     * @param forest the forest to add the trees to
+     * @return a report of the trees read and the rows skipped
+     * @throws IOException if the file cannot be opened or read
+     */
+    public CsvReadReport read(String fileName, Forest forest) throws IOException {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.READ_FOREST);
+        CsvReadReport report = new CsvReadReport(fileName);
+        if (fileName.endsWith(".gz")) {
+            readCompressed(fileName, forest, report);
+            ForestMetrics.end(sample, forest.getName(), report.getTreeCount(), Files.size(Path.of(fileName)), 0);
+            return report;
+        }
+
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            long[] bounds = findChunkBounds(channel);
+            int chunkCount = bounds.length - 1;
+            Chunk[] chunks = new Chunk[chunkCount];
+
+            if (chunkCount == 1 || parallelism == 1) {
+                for (int chunk = 0; chunk < chunkCount; chunk++) {
+                    chunks[chunk] = parseChunk(channel, bounds[chunk], bounds[chunk + 1]);
+                }
+            } else {
+                ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunkCount));
+                try {
+                    ArrayList<Future<Chunk>> futures = new ArrayList<>(chunkCount);
+                    for (int chunk = 0; chunk < chunkCount; chunk++) {
+                        long start = bounds[chunk];
+                        long end = bounds[chunk + 1];
+                        futures.add(executor.submit(() -> parseChunk(channel, start, end)));
+                    }
+                    for (int chunk = 0; chunk < chunkCount; chunk++) {
+                        chunks[chunk] = futures.get(chunk).get();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while reading " + fileName, e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException("Error reading " + fileName, e.getCause());
+                } finally {
+                    executor.shutdown();
+                }
+            }
+
+            long lineOffset = 0;
+            for (Chunk chunk : chunks) {
+                lineOffset = addChunk(chunk, lineOffset, forest, report);
+            }
+            ForestMetrics.end(sample, forest.getName(), report.getTreeCount(), channel.size(), 0);
+        }
+        return report;
+    }
+
+    /**
+     * Reads a compressed file through a buffer of whole lines, parsing each bufferful as a chunk.
+     * A line longer than the buffer makes the buffer grow.
+     *
+     * @param fileName the name of the compressed CSV file
+     * @param forest the forest to add the trees to
+     * @param report the report to add the trees and errors to
+     * @throws IOException if the file cannot be opened, read or decompressed
+     */
+    private static void readCompressed(String fileName, Forest forest, CsvReadReport report) throws IOException {
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(Path.of(fileName)), 1 << 16)) {
+            byte[] bytes = new byte[MIN_CHUNK_SIZE];
+            int filled = 0;
+            long lineOffset = 0;
+            boolean ended = false;
+            while (!ended) {
+                filled += input.readNBytes(bytes, filled, bytes.length - filled);
+                ended = filled < bytes.length;
+                int end = ended ? filled : lastLineEnd(bytes, filled);
+                if (end == 0) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                    continue;
+                }
+                lineOffset = addChunk(parseBuffer(ByteBuffer.wrap(bytes).limit(end)), lineOffset, forest, report);
+                System.arraycopy(bytes, end, bytes, 0, filled - end);
+                filled -= end;
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the last whole line in a buffer.
+     *
+     * @return the position just after the last newline, or 0 if there is none
+     */
+    private static int lastLineEnd(byte[] bytes, int length) {
+        for (int index = length - 1; index >= 0; index--) {
+            if (bytes[index] == '\n') {
+                return index + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Adds the trees of a chunk to the forest and its errors to the report, numbering its lines after the lines before it.
+     *
+     * @return the number of lines read once the chunk is added
+     */
+    private static long addChunk(Chunk chunk, long lineOffset, Forest forest, CsvReadReport report) {
+        forest.addTrees(chunk.trees);
+        report.addTrees(chunk.trees.size());
+        for (int error = 0; error < chunk.errorMessages.size(); error++) {
+            report.addError(lineOffset + chunk.errorLines[error], chunk.errorMessages.get(error));
+        }
+        report.addUnreportedErrors(chunk.errorCount - chunk.errorMessages.size());
+        return lineOffset + chunk.lineCount;
+    }
+
+    /**
+     * Splits a file into chunks that each start at the beginning of a line.
+     *
+     * @param channel the open file
+     * @return the offsets of the chunks, where chunk i runs from bounds[i] to bounds[i + 1]
+     * @throws IOException if the file cannot be read
+     */
+    private long[] findChunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / (parallelism * 4L)));
+        ArrayList<Long> bounds = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+
+        bounds.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            long lineEnd = findNextLine(channel, position, probe);
+            if (lineEnd >= size) {
+                break;
+            }
+            bounds.add(lineEnd);
+            position = lineEnd + chunkSize;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int index = 0; index < result.length; index++) {
+            result[index] = bounds.get(index);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the start of the first line after the given position.
+     *
+     * @param channel the open file
+     * @param position the position to search from
+     * @param probe a buffer used for reading
+     * @return the position just after the next newline, or the file size if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private static long findNextLine(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int index = 0; index < read; index++) {
+                if (probe.get(index) == '\n') {
+                    return position + index + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Maps a chunk of the file and parses every line in it.
+     *
+     * @param channel the open file
+     * @param start the offset of the first byte of the chunk
+     * @param end the offset just after the last byte of the chunk
+     * @return the trees and errors found in the chunk
+     * @throws IOException if the chunk cannot be mapped
+     */
+    private static Chunk parseChunk(FileChannel channel, long start, long end) throws IOException {
+        if (end == start) {
+            return new Chunk(0);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        return parseBuffer(buffer);
+    }
+
+    /**
+     * Parses every line in a buffer, from its start to its limit.
+     *
+     * @param buffer the chunk of the file
+     * @return the trees and errors found in the chunk
+     */
+    private static Chunk parseBuffer(ByteBuffer buffer) {
+        Chunk chunk = new Chunk(buffer.limit() / 20);
+        int limit = buffer.limit();
+        int[] fieldStarts = new int[FIELD_COUNT];
+        int[] fieldEnds = new int[FIELD_COUNT];
+        int lineStart = 0;
+
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            chunk.lineCount++;
+            parseLine(buffer, lineStart, lineEnd, fieldStarts, fieldEnds, chunk);
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * Parses one line into a tree and adds it to the chunk, or records an error for the line.
+     *
+     * @param buffer the chunk of the file
+     * @param start the offset of the first byte of the line
+     * @param end the offset of the newline ending the line, or the end of the chunk
+     * @param fieldStarts scratch space for the start of each field
+     * @param fieldEnds scratch space for the end of each field
+     * @param chunk the chunk to add the tree or error to
+     */
+    private static void parseLine(ByteBuffer buffer, int start, int end, int[] fieldStarts, int[] fieldEnds,
+                                  Chunk chunk) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (isBlank(buffer, start, end)) {
+            return;
+        }
+
+        int fields = 0;
+        int fieldStart = start;
+        for (int index = start; index <= end; index++) {
+            if (index == end || buffer.get(index) == ',') {
+                if (fields < FIELD_COUNT) {
+                    fieldStarts[fields] = fieldStart;
+                    fieldEnds[fields] = index;
+                }
+                fields++;
+                fieldStart = index + 1;
+            }
+        }
+        if (fields != FIELD_COUNT) {
+            chunk.addError("expected " + FIELD_COUNT + " fields but found " + fields);
+            return;
+        }
+
+        Tree.TreeSpecies species = null;
+        if (!isBlank(buffer, fieldStarts[0], fieldEnds[0])) {
+            species = parseSpecies(buffer, fieldStarts[0], fieldEnds[0]);
+            if (species == null) {
+                chunk.addError("unknown species \"" + text(buffer, fieldStarts[0], fieldEnds[0]) + "\"");
+                return;
+            }
+        }
+        long year = parseInt(buffer, fieldStarts[1], fieldEnds[1]);
+        if (year == Long.MIN_VALUE) {
+            chunk.addError("invalid planting year \"" + text(buffer, fieldStarts[1], fieldEnds[1]) + "\"");
+            return;
+        }
+        double height = parseDouble(buffer, fieldStarts[2], fieldEnds[2]);
+        if (Double.isNaN(height)) {
+            chunk.addError("invalid height \"" + text(buffer, fieldStarts[2], fieldEnds[2]) + "\"");
+            return;
+        }
+        double growthRate = parseDouble(buffer, fieldStarts[3], fieldEnds[3]);
+        if (Double.isNaN(growthRate)) {
+            chunk.addError("invalid growth rate \"" + text(buffer, fieldStarts[3], fieldEnds[3]) + "\"");
+            return;
+        }
+        chunk.trees.add(species, (int) year, height, growthRate);
+    }
+
+    /**
+     * Matches a field against the species names, ignoring case and surrounding spaces.
+     *
+     * @return the matching species, or null if there is none
+     */
+    private static Tree.TreeSpecies parseSpecies(ByteBuffer buffer, int start, int end) {
+        start = skipSpaces(buffer, start, end);
+        end = trimSpaces(buffer, start, end);
+        for (int code = 0; code < SPECIES_NAMES.length; code++) {
+            byte[] name = SPECIES_NAMES[code];
+            if (name.length != end - start) {
+                continue;
+            }
+            int index = 0;
+            while (index < name.length && Character.toUpperCase(buffer.get(start + index)) == name[index]) {
+                index++;
+            }
+            if (index == name.length) {
+                return SPECIES[code];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a field as a whole number that fits in an int.
+     *
+     * @return the number, or Long.MIN_VALUE if the field is not a valid int
+     */
+    private static long parseInt(ByteBuffer buffer, int start, int end) {
+        start = skipSpaces(buffer, start, end);
+        end = trimSpaces(buffer, start, end);
+        boolean negative = false;
+        if (start < end && (buffer.get(start) == '-' || buffer.get(start) == '+')) {
+            negative = buffer.get(start) == '-';
+            start++;
+        }
+        if (start == end) {
+            return Long.MIN_VALUE;
+        }
+
+        long value = 0;
+        for (int index = start; index < end; index++) {
+            int digit = buffer.get(index) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return Long.MIN_VALUE;
+            }
+        }
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+    }
+
+    /**
+     * Parses a field as a decimal number.
+     * Plain decimals with at most 15 digits are converted with a single exact division, which rounds the same
+     * way as Double.parseDouble. Anything else, such as exponents, falls back to Double.parseDouble.
+     *
+     * @return the number, or NaN if the field is not a valid number
+     */
+    static double parseDouble(ByteBuffer buffer, int start, int end) {
+        start = skipSpaces(buffer, start, end);
+        end = trimSpaces(buffer, start, end);
+        int index = start;
+        boolean negative = false;
+        if (index < end && (buffer.get(index) == '-' || buffer.get(index) == '+')) {
+            negative = buffer.get(index) == '-';
+            index++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        for (; index < end; index++) {
+            byte current = buffer.get(index);
+            if (current >= '0' && current <= '9') {
+                if (mantissa == 0 && current == '0' && !seenPoint) {
+                    continue;
+                }
+                mantissa = mantissa * 10 + (current - '0');
+                digits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+                if (digits > MAX_FAST_DIGITS) {
+                    return parseDoubleSlowly(buffer, start, end);
+                }
+            } else if (current == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return parseDoubleSlowly(buffer, start, end);
+            }
+        }
+        if (!hasDigit(buffer, start, end)) {
+            return Double.NaN;
+        }
+
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field with Double.parseDouble, for the rare numbers the fast path does not handle.
+     *
+     * @return the number, or NaN if the field is not a valid number
+     */
+    private static double parseDoubleSlowly(ByteBuffer buffer, int start, int end) {
+        try {
+            double value = Double.parseDouble(text(buffer, start, end));
+            return Double.isInfinite(value) ? Double.NaN : value;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static boolean hasDigit(ByteBuffer buffer, int start, int end) {
+        for (int index = start; index < end; index++) {
+            if (buffer.get(index) >= '0' && buffer.get(index) <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        return skipSpaces(buffer, start, end) == end;
+    }
+
+    private static int skipSpaces(ByteBuffer buffer, int start, int end) {
+        while (start < end && (buffer.get(start) == ' ' || buffer.get(start) == '\t')) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimSpaces(ByteBuffer buffer, int start, int end) {
+        while (end > start && (buffer.get(end - 1) == ' ' || buffer.get(end - 1) == '\t')) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Copies a field into a String, which is only done when reporting an error.
+     */
+    private static String text(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int index = 0; index < bytes.length; index++) {
+            bytes[index] = buffer.get(start + index);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * The trees, line count and errors found in one chunk of the file.
+     * Error line numbers are counted from the start of the chunk.
+     */
+    private static class Chunk {
+        private final TreeColumns trees;
+        private long lineCount;
+        private long errorCount;
+        private final long[] errorLines;
+        private final ArrayList<String> errorMessages;
+
+        Chunk(int expectedTrees) {
+            trees = new TreeColumns(expectedTrees);
+            lineCount = 0;
+            errorCount = 0;
+            errorLines = new long[CsvReadReport.MAX_REPORTED_ERRORS];
+            errorMessages = new ArrayList<>();
+        }
+
+        void addError(String message) {
+            errorCount++;
+            if (errorMessages.size() < CsvReadReport.MAX_REPORTED_ERRORS) {
+                errorLines[errorMessages.size()] = lineCount;
+                errorMessages.add(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package forestry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The ForestCsvWriter class writes the trees of a forest to a CSV file in the species,year,height,growthRate
+ * layout that ForestCsvReader reads, one tree per line with no header and no newline after the last line,
+ * as in the forest files the simulation starts from. Species are written in title case, whole heights without
+ * a decimal point and growth rates with at least one decimal, and every number is written with the fewest digits
+ * that read back as exactly the same double, so reading the file gives back the same trees bit for bit. Heights that have grown
+ * to infinity cannot be read back and are reported by the reader.
+ *
+ * Trees are formatted by hand into chunk buffers that are reused, and the chunks are written through a file channel.
+ * Chunks are formatted in parallel, but only a few more chunks than there are threads are ever in memory,
+ * and they are written in order, so the file is the same on any number of threads and a forest of any size is
+ * written in constant memory. A file whose name ends in .gz is compressed at the fastest level, each chunk on
+ * its own thread into its own gzip member; gzip readers read the members back as one stream.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestCsvWriter {
+    private static final int CHUNK_TREES = TreeColumns.BLOCK_SIZE * 16;
+
+    /**
+     * The longest row: a species, a year, two numbers in exponent form, three commas and a newline.
+     */
+    private static final int MAX_ROW_BYTES = 8 + 11 + 2 * 24 + 4;
+
+    /**
+     * Powers of ten that are exact as doubles, used by the fast path for formatting decimals.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final Tree.TreeSpecies[] SPECIES = Tree.TreeSpecies.values();
+    private static final byte[][] SPECIES_NAMES = new byte[SPECIES.length][];
+    private static final byte[] NO_SPECIES_NAME = new byte[0];
+
+    static {
+        for (int code = 0; code < SPECIES.length; code++) {
+            SPECIES_NAMES[code] = titleCase(SPECIES[code].name());
+        }
+    }
+
+    private final int parallelism;
+
+    /**
+     * Constructs a writer that formats chunks on every available processor.
+     */
+    public ForestCsvWriter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a writer that formats chunks on the specified number of threads.
+     *
+     * @param parallelism the number of threads used to format chunks
+     */
+    public ForestCsvWriter(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Writes every tree of a forest to a CSV file, in forest order, replacing the file if it exists.
+     * Trees without a species, which older forest files can hold, are written with an empty species field,
+     * which ForestCsvReader reads back as no species. The forest is shared rather than copied,
+     * so it may keep changing while the file is written without affecting the file.
+     *
+     * @param fileName the name of the CSV file, including its extension; a name ending in .gz is compressed
+     * @param forest the forest to write, from the thread that changes it
+     * @return the number of bytes written to the file
+     * @throws IOException if the file cannot be written
+     */
+    public long write(String fileName, Forest forest) throws IOException {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.WRITE_CSV);
+        Forest snapshot = forest.share();
+        TreeColumns trees = snapshot.getColumns();
+        boolean compressed = fileName.endsWith(".gz");
+        int chunkCount = (trees.size() + CHUNK_TREES - 1) / CHUNK_TREES;
+        long written = 0;
+
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (chunkCount <= 1 || parallelism == 1) {
+                Buffers buffers = new Buffers(compressed);
+                try {
+                    for (int chunk = 0; chunk < chunkCount; chunk++) {
+                        written += writeFully(channel, formatChunk(trees, chunk, buffers));
+                    }
+                } finally {
+                    buffers.release();
+                }
+            } else {
+                written = writeInParallel(channel, trees, chunkCount, compressed);
+            }
+            channel.force(false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing " + fileName, e);
+        }
+        ForestMetrics.end(sample, snapshot.getName(), trees.size(), written, 0);
+        return written;
+    }
+
+    /**
+     * Formats chunks on a pool of threads and writes them in order as they finish.
+     * At most twice as many chunks as threads are formatted ahead of the one being written,
+     * and each chunk's buffers go back to the pool once it is written.
+     */
+    private long writeInParallel(FileChannel channel, TreeColumns trees, int chunkCount, boolean compressed)
+            throws IOException, InterruptedException {
+        int threads = Math.min(parallelism, chunkCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ConcurrentLinkedQueue<Buffers> free = new ConcurrentLinkedQueue<>();
+        ArrayDeque<Future<Buffers>> pending = new ArrayDeque<>();
+        long written = 0;
+        try {
+            int next = 0;
+            while (next < chunkCount || !pending.isEmpty()) {
+                while (next < chunkCount && pending.size() < threads * 2) {
+                    int chunk = next++;
+                    pending.add(executor.submit(() -> {
+                        Buffers buffers = free.poll();
+                        if (buffers == null) {
+                            buffers = new Buffers(compressed);
+                        }
+                        formatChunk(trees, chunk, buffers);
+                        return buffers;
+                    }));
+                }
+                Buffers buffers = pending.poll().get();
+                written += writeFully(channel, buffers.output());
+                free.offer(buffers);
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Error formatting trees", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            for (Buffers buffers : free) {
+                buffers.release();
+            }
+        }
+        return written;
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer output) throws IOException {
+        long written = output.remaining();
+        while (output.hasRemaining()) {
+            channel.write(output);
+        }
+        return written;
+    }
+
+    /**
+     * Formats one chunk of trees into the buffers, compressing it if the buffers are for a compressed file.
+     *
+     * @return the bytes to write for the chunk
+     */
+    private static ByteBuffer formatChunk(TreeColumns trees, int chunk, Buffers buffers) {
+        byte[] species = trees.speciesColumn();
+        int[] years = trees.yearPlantingColumn();
+        double[] heights = trees.heightColumn();
+        double[] growthRates = trees.growthRateColumn();
+        int from = chunk * CHUNK_TREES;
+        int to = Math.min(from + CHUNK_TREES, trees.size());
+        byte[] text = buffers.text;
+        int position = 0;
+
+        for (int index = from; index < to; index++) {
+            byte[] name = species[index] == TreeColumns.NO_SPECIES ? NO_SPECIES_NAME : SPECIES_NAMES[species[index]];
+            System.arraycopy(name, 0, text, position, name.length);
+            position += name.length;
+            text[position++] = ',';
+            position = appendLong(text, position, years[index]);
+            text[position++] = ',';
+            position = appendDouble(text, position, heights[index], 0);
+            text[position++] = ',';
+            position = appendDouble(text, position, growthRates[index], 1);
+            text[position++] = '\n';
+        }
+        if (to == trees.size()) {
+            position--;
+        }
+        buffers.textLength = position;
+        if (buffers.deflater != null) {
+            buffers.compress();
+        }
+        return buffers.output();
+    }
+
+    /**
+     * Appends the shortest decimal that reads back as exactly the same double.
+     * Numbers that need at most 15 digits are found by scaling by powers of ten, trying the fewest decimals first,
+     * and are kept only if dividing back gives the same double, which is how ForestCsvReader reads them.
+     * Anything else is written as Double.toString writes it.
+     *
+     * @param minDecimals 0 to write whole numbers without a decimal point, or 1 to write them with .0
+     * @return the position after the number
+     */
+    static int appendDouble(byte[] text, int position, double value, int minDecimals) {
+        if (Double.doubleToRawLongBits(value) < 0) {
+            text[position++] = '-';
+            value = -value;
+        }
+        if (value < POWERS_OF_TEN[MAX_FAST_DIGITS]) {
+            for (int decimals = minDecimals; decimals <= MAX_FAST_DIGITS; decimals++) {
+                double scaled = Math.rint(value * POWERS_OF_TEN[decimals]);
+                if (scaled >= POWERS_OF_TEN[MAX_FAST_DIGITS]) {
+                    break;
+                }
+                if (scaled / POWERS_OF_TEN[decimals] == value) {
+                    return appendDecimal(text, position, (long) scaled, decimals);
+                }
+            }
+        }
+        String digits = Double.toString(value);
+        int length = minDecimals == 0 && digits.endsWith(".0") ? digits.length() - 2 : digits.length();
+        for (int index = 0; index < length; index++) {
+            text[position++] = (byte) digits.charAt(index);
+        }
+        return position;
+    }
+
+    /**
+     * Appends a whole number scaled down by a power of ten, with leading zeros before the decimal point as needed.
+     */
+    private static int appendDecimal(byte[] text, int position, long scaled, int decimals) {
+        if (decimals == 0) {
+            return appendLong(text, position, scaled);
+        }
+        int end = position + Math.max(digitCount(scaled), decimals + 1) + 1;
+        int index = end;
+        for (int digit = 0; digit < decimals; digit++) {
+            text[--index] = (byte) ('0' + scaled % 10);
+            scaled /= 10;
+        }
+        text[--index] = '.';
+        do {
+            text[--index] = (byte) ('0' + scaled % 10);
+            scaled /= 10;
+        } while (scaled > 0);
+        return end;
+    }
+
+    private static int appendLong(byte[] text, int position, long value) {
+        if (value < 0) {
+            text[position++] = '-';
+            value = -value;
+        }
+        int end = position + digitCount(value);
+        int index = end;
+        do {
+            text[--index] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        return end;
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static byte[] titleCase(String name) {
+        return (name.charAt(0) + name.substring(1).toLowerCase()).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The buffers one thread formats a chunk into, kept from chunk to chunk.
+     * For a compressed file the chunk is then deflated into a gzip member of its own.
+     */
+    private static class Buffers {
+        private final byte[] text;
+        private int textLength;
+        private final Deflater deflater;
+        private final CRC32 checksum;
+        private byte[] packed;
+        private int packedLength;
+
+        Buffers(boolean compressed) {
+            text = new byte[CHUNK_TREES * MAX_ROW_BYTES];
+            if (compressed) {
+                deflater = new Deflater(Deflater.BEST_SPEED, true);
+                checksum = new CRC32();
+                packed = new byte[text.length / 2];
+            } else {
+                deflater = null;
+                checksum = null;
+            }
+        }
+
+        /**
+         * Deflates the text into a gzip member: a header, the deflated text, its checksum and its length.
+         */
+        void compress() {
+            System.arraycopy(GZIP_HEADER, 0, packed, 0, GZIP_HEADER.length);
+            packedLength = GZIP_HEADER.length;
+            deflater.reset();
+            deflater.setInput(text, 0, textLength);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (packedLength + 8 >= packed.length) {
+                    byte[] larger = new byte[packed.length * 2];
+                    System.arraycopy(packed, 0, larger, 0, packedLength);
+                    packed = larger;
+                }
+                packedLength += deflater.deflate(packed, packedLength, packed.length - 8 - packedLength);
+            }
+            checksum.reset();
+            checksum.update(text, 0, textLength);
+            putIntLittleEndian((int) checksum.getValue());
+            putIntLittleEndian(textLength);
+        }
+
+        private void putIntLittleEndian(int value) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                packed[packedLength++] = (byte) (value >>> shift);
+            }
+        }
+
+        /**
+         * Frees the native memory of the deflater.
+         */
+        void release() {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        ByteBuffer output() {
+            return deflater == null ? ByteBuffer.wrap(text, 0, textLength) : ByteBuffer.wrap(packed, 0, packedLength);
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package forestry;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * The ForestFile class reads and writes forests in a compact, versioned binary format.
+ * A file starts with a header holding a magic number, the format version, the tree count, the checkpoint
+ * generation, the forest name and a dictionary of species names. The trees follow as four packed columns: heights, growth rates,
+ * planting years and species codes, each stored in little-endian order with no per-tree overhead.
+ * Because the columns sit at fixed offsets, a file can also be opened as a memory-mapped MappedForestView.
+ * Files written with Java serialization by earlier versions are recognized and loaded through the old path,
+ * and are written in the binary format the next time they are saved.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestFile {
+    /**
+     * The first four bytes of every binary forest file, "FRST" in ASCII.
+     */
+    public static final int MAGIC = 0x54535246;
+
+    /**
+     * The version of the format written by this class.
+     * Version 2 added the checkpoint generation that ties a snapshot to its ForestJournal.
+     */
+    public static final short VERSION = 2;
+
+    private static final short FIRST_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_HEADER_SIZE = 1 << 16;
+    private static final byte SERIALIZED_FIRST_BYTE = (byte) 0xAC;
+    private static final byte SERIALIZED_SECOND_BYTE = (byte) 0xED;
+
+    /**
+     * Writes a forest to a file in the binary format, replacing anything already in the file.
+     * The file is not tied to any journal.
+     *
+     * @param fileName the name of the file, including its extension
+     * @param forest the forest to write
+     * @return the number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    public static long write(String fileName, Forest forest) throws IOException {
+        return write(fileName, forest, 0);
+    }
+
+    /**
+     * Writes a forest to a file in the binary format as the snapshot of a journal checkpoint.
+     *
+     * @param fileName the name of the file, including its extension
+     * @param forest the forest to write
+     * @param generation the checkpoint generation of the snapshot, or 0 if it has no journal
+     * @return the number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    public static long write(String fileName, Forest forest, long generation) throws IOException {
+        return write(Path.of(fileName), forest, generation, false);
+    }
+
+    /**
+     * Writes a forest to a temporary file, forces it to disk and then renames it over the target file,
+     * so a crash leaves either the old file or the new one, never a partly written file.
+     *
+     * @param fileName the name of the file, including its extension
+     * @param forest the forest to write
+     * @param generation the checkpoint generation of the snapshot, or 0 if it has no journal
+     * @return the number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    public static long writeAtomically(String fileName, Forest forest, long generation) throws IOException {
+        Path target = Path.of(fileName);
+        Path temporary = Path.of(fileName + ".tmp");
+        try {
+            long written = write(temporary, forest, generation, true);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static long write(Path path, Forest forest, long generation, boolean force) throws IOException {
+        TreeColumns trees = forest.getColumns();
+        int count = trees.size();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(buffer, forest.getName(), count, generation);
+            buffer.flip();
+            writeFully(channel, buffer);
+
+            writeColumn(channel, buffer, trees.heightColumn(), count);
+            writeColumn(channel, buffer, trees.growthRateColumn(), count);
+            writeColumn(channel, buffer, trees.yearPlantingColumn(), count);
+            writeColumn(channel, buffer, trees.speciesColumn(), count);
+            if (force) {
+                channel.force(true);
+            }
+            return channel.position();
+        }
+    }
+
+    /**
+     * Reads a forest from a file, in either the binary format or the older Java serialization format.
+     *
+     * @param fileName the name of the file, including its extension
+     * @return the forest stored in the file
+     * @throws IOException if the file cannot be read or is not a forest file
+     */
+    public static Forest read(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.limit(0);
+            readAtLeast(channel, buffer, 2);
+            if (buffer.get(0) == SERIALIZED_FIRST_BYTE && buffer.get(1) == SERIALIZED_SECOND_BYTE) {
+                channel.position(0);
+                return readSerialized(channel);
+            }
+
+            channel.position(0);
+            Header header = readHeader(channel, buffer);
+            int count = header.count;
+            checkSize(channel.size(), header);
+
+            double[] heights = new double[Math.max(count, 1)];
+            double[] growthRates = new double[Math.max(count, 1)];
+            int[] yearPlanting = new int[Math.max(count, 1)];
+            byte[] species = new byte[Math.max(count, 1)];
+
+            channel.position(header.dataOffset);
+            buffer.clear().flip();
+            readColumn(channel, buffer, heights, count);
+            readColumn(channel, buffer, growthRates, count);
+            readColumn(channel, buffer, yearPlanting, count);
+            readColumn(channel, buffer, species, count);
+            header.translateSpecies(species, count);
+
+            Forest forest = new Forest(header.name, new TreeColumns(species, yearPlanting, heights, growthRates, count));
+            forest.setGeneration(header.generation);
+            return forest;
+        }
+    }
+
+    /**
+     * Opens a binary forest file as a read-only view that reads the trees straight from the mapped file.
+     * Nothing is copied onto the heap, so opening is fast no matter how many trees the file holds.
+     *
+     * @param fileName the name of the file, including its extension
+     * @return a read-only view of the trees in the file
+     * @throws IOException if the file cannot be read or is not a binary forest file
+     */
+    public static MappedForestView map(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(MAX_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            Header header = readHeader(channel, buffer);
+            checkSize(channel.size(), header);
+
+            long count = header.count;
+            long heights = header.dataOffset;
+            long growthRates = heights + count * Double.BYTES;
+            long years = growthRates + count * Double.BYTES;
+            long species = years + count * Integer.BYTES;
+
+            return new MappedForestView(header.name, header.count,
+                    map(channel, heights, count * Double.BYTES).asDoubleBuffer(),
+                    map(channel, growthRates, count * Double.BYTES).asDoubleBuffer(),
+                    map(channel, years, count * Integer.BYTES).asIntBuffer(),
+                    map(channel, species, count),
+                    header.speciesTable());
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Puts the header into the buffer, padded so the first column starts on an 8 byte boundary.
+     */
+    private static void writeHeader(ByteBuffer buffer, String name, int count, long generation) {
+        Tree.TreeSpecies[] dictionary = Tree.TreeSpecies.values();
+        byte[] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) 0);
+        buffer.putLong(count);
+        int dataOffsetPosition = buffer.position();
+        buffer.putLong(0);
+        buffer.putLong(generation);
+        if (nameBytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(nameBytes.length);
+            buffer.put(nameBytes);
+        }
+        buffer.putInt(dictionary.length);
+        for (Tree.TreeSpecies treeSpecies : dictionary) {
+            byte[] speciesName = treeSpecies.name().getBytes(StandardCharsets.US_ASCII);
+            buffer.put((byte) speciesName.length);
+            buffer.put(speciesName);
+        }
+        while (buffer.position() % Long.BYTES != 0) {
+            buffer.put((byte) 0);
+        }
+        buffer.putLong(dataOffsetPosition, buffer.position());
+    }
+
+    /**
+     * Reads and checks the header at the start of the channel.
+     */
+    private static Header readHeader(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+            // keep reading until the buffer is full or the file ends
+        }
+        buffer.flip();
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a forest file");
+            }
+            short version = buffer.getShort();
+            if (version < FIRST_VERSION || version > VERSION) {
+                throw new IOException("Unsupported forest file version " + version);
+            }
+            buffer.getShort();
+            long count = buffer.getLong();
+            long dataOffset = buffer.getLong();
+            long generation = version >= 2 ? buffer.getLong() : 0;
+            if (count < 0 || count > Integer.MAX_VALUE - 8) {
+                throw new IOException("Invalid tree count " + count);
+            }
+
+            int nameLength = buffer.getInt();
+            String name = null;
+            if (nameLength >= 0) {
+                byte[] nameBytes = new byte[nameLength];
+                buffer.get(nameBytes);
+                name = new String(nameBytes, StandardCharsets.UTF_8);
+            }
+
+            int speciesCount = buffer.getInt();
+            if (speciesCount < 0 || speciesCount > 255) {
+                throw new IOException("Invalid species count " + speciesCount);
+            }
+            String[] dictionary = new String[speciesCount];
+            for (int code = 0; code < speciesCount; code++) {
+                byte[] speciesName = new byte[buffer.get() & 0xFF];
+                buffer.get(speciesName);
+                dictionary[code] = new String(speciesName, StandardCharsets.US_ASCII);
+            }
+            if (dataOffset < buffer.position() || dataOffset % Long.BYTES != 0) {
+                throw new IOException("Invalid data offset " + dataOffset);
+            }
+            return new Header(name, (int) count, dataOffset, generation, dictionary);
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IOException("Forest file header is truncated", e);
+        }
+    }
+
+    private static void checkSize(long fileSize, Header header) throws IOException {
+        long expected = header.dataOffset + (long) header.count * TreeColumns.BYTES_PER_TREE;
+        if (fileSize < expected) {
+            throw new IOException("Forest file is truncated: expected " + expected + " bytes but found " + fileSize);
+        }
+    }
+
+    /**
+     * Reads a forest written with Java serialization by earlier versions of the program.
+     */
+    private static Forest readSerialized(FileChannel channel) throws IOException {
+        ObjectInputStream input = new LegacyInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        try {
+            return (Forest) input.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Not a forest file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads serialized forests written before the classes moved into the forestry package.
+     * Those streams name the classes without a package, so the forest classes are looked up here by their
+     * simple names. Serialization ignores packages when it compares class names, and the serial version
+     * UIDs are unchanged, so the old streams load as they did before.
+     */
+    private static class LegacyInputStream extends ObjectInputStream {
+        private static final Set<String> LEGACY_CLASSES = Set.of("Forest", "Tree", "Tree$TreeSpecies");
+
+        LegacyInputStream(InputStream input) throws IOException {
+            super(input);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            String name = description.getName();
+            if (LEGACY_CLASSES.contains(name)) {
+                return Class.forName(ForestFile.class.getPackageName() + "." + name, false,
+                        ForestFile.class.getClassLoader());
+            }
+            return super.resolveClass(description);
+        }
+    }
+
+    private static void writeColumn(FileChannel channel, ByteBuffer buffer, double[] values, int count)
+            throws IOException {
+        int perBuffer = buffer.capacity() / Double.BYTES;
+        for (int written = 0; written < count; written += perBuffer) {
+            int length = Math.min(perBuffer, count - written);
+            buffer.clear();
+            buffer.asDoubleBuffer().put(values, written, length);
+            buffer.limit(length * Double.BYTES);
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static void writeColumn(FileChannel channel, ByteBuffer buffer, int[] values, int count)
+            throws IOException {
+        int perBuffer = buffer.capacity() / Integer.BYTES;
+        for (int written = 0; written < count; written += perBuffer) {
+            int length = Math.min(perBuffer, count - written);
+            buffer.clear();
+            buffer.asIntBuffer().put(values, written, length);
+            buffer.limit(length * Integer.BYTES);
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static void writeColumn(FileChannel channel, ByteBuffer buffer, byte[] values, int count)
+            throws IOException {
+        int perBuffer = buffer.capacity();
+        for (int written = 0; written < count; written += perBuffer) {
+            int length = Math.min(perBuffer, count - written);
+            buffer.clear();
+            buffer.put(values, written, length);
+            buffer.flip();
+            writeFully(channel, buffer);
+        }
+    }
+
+    /**
+     * Fills the values from the channel. The buffer holds bytes left over from the previous read
+     * between its position and limit.
+     */
+    private static void readColumn(FileChannel channel, ByteBuffer buffer, double[] values, int count)
+            throws IOException {
+        for (int read = 0; read < count; ) {
+            readAtLeast(channel, buffer, Double.BYTES);
+            int length = Math.min(buffer.remaining() / Double.BYTES, count - read);
+            buffer.asDoubleBuffer().get(values, read, length);
+            buffer.position(buffer.position() + length * Double.BYTES);
+            read += length;
+        }
+    }
+
+    private static void readColumn(FileChannel channel, ByteBuffer buffer, int[] values, int count)
+            throws IOException {
+        for (int read = 0; read < count; ) {
+            readAtLeast(channel, buffer, Integer.BYTES);
+            int length = Math.min(buffer.remaining() / Integer.BYTES, count - read);
+            buffer.asIntBuffer().get(values, read, length);
+            buffer.position(buffer.position() + length * Integer.BYTES);
+            read += length;
+        }
+    }
+
+    private static void readColumn(FileChannel channel, ByteBuffer buffer, byte[] values, int count)
+            throws IOException {
+        for (int read = 0; read < count; ) {
+            readAtLeast(channel, buffer, 1);
+            int length = Math.min(buffer.remaining(), count - read);
+            buffer.get(values, read, length);
+            read += length;
+        }
+    }
+
+    /**
+     * Makes sure at least the given number of unread bytes are between the buffer's position and limit,
+     * keeping any bytes that have not been used yet.
+     */
+    private static void readAtLeast(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Forest file ended early");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * The fields of a binary forest file header.
+     */
+    private static class Header {
+        private final String name;
+        private final int count;
+        private final long dataOffset;
+        private final long generation;
+        private final String[] dictionary;
+
+        Header(String name, int count, long dataOffset, long generation, String[] dictionary) {
+            this.name = name;
+            this.count = count;
+            this.dataOffset = dataOffset;
+            this.generation = generation;
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Maps each species code in the file to the current species, by name.
+         */
+        Tree.TreeSpecies[] speciesTable() throws IOException {
+            Tree.TreeSpecies[] table = new Tree.TreeSpecies[dictionary.length];
+            for (int code = 0; code < dictionary.length; code++) {
+                try {
+                    table[code] = Tree.TreeSpecies.valueOf(dictionary[code]);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unknown species " + dictionary[code] + " in forest file");
+                }
+            }
+            return table;
+        }
+
+        /**
+         * Rewrites the species codes read from the file as current species codes.
+         */
+        void translateSpecies(byte[] species, int count) throws IOException {
+            Tree.TreeSpecies[] table = speciesTable();
+            byte[] codes = new byte[256];
+            boolean[] valid = new boolean[256];
+            for (int code = 0; code < table.length; code++) {
+                codes[code] = TreeColumns.encodeSpecies(table[code]);
+                valid[code] = true;
+            }
+            codes[TreeColumns.NO_SPECIES & 0xFF] = TreeColumns.NO_SPECIES;
+            valid[TreeColumns.NO_SPECIES & 0xFF] = true;
+
+            for (int index = 0; index < count; index++) {
+                int code = species[index] & 0xFF;
+                if (!valid[code]) {
+                    throw new IOException("Invalid species code " + code + " for tree " + index);
+                }
+                species[index] = codes[code];
+            }
+        }
+    }
+}
@@ -0,0 +1,615 @@
+package forestry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The ForestHistory class records how a forest changes from year to year, so the height of a tree can be looked up
+ * for every year it stood, and the yearly totals of the forest can be listed, after the trees have grown on or
+ * been reaped.
+ *
+ * A tree's height each year follows from its height the year before and its growth rate, so heights are never
+ * stored per year. The recorder keeps a keyframe of every tree's number, height and growth rate when recording
+ * starts, and then only what changes: the trees planted and cut during each year, and how many years each
+ * growth covered. Tree numbers are stored as varint deltas, and the keyframe and each year's changes are
+ * compressed with Deflater, in blocks so a lookup only inflates what it reads. A growth with no plants or cuts
+ * costs the recorder one entry of yearly totals, whatever the size of the forest.
+ *
+ * Once the compressed trees pass the memory budget, the recorder starts again from a new keyframe of the
+ * forest as it is, so the heights of single trees go back only to that year. The yearly totals are always kept.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestHistory {
+    /**
+     * The default memory budget in bytes for the compressed trees.
+     */
+    public static final long DEFAULT_BUDGET = 64L << 20;
+
+    private static final byte PLANT = 1;
+    private static final byte CUT = 2;
+
+    private final long budget;
+    private final Deflater deflater;
+    private final Encoder events;
+    private final Encoder block;
+
+    private boolean tracking;
+    private int firstYear;
+    private int[] keyframeIds;
+    private byte[][] keyframeBlocks;
+    private int[] keyframeLengths;
+    private final ArrayList<byte[]> changes;
+    private int[] yearLengths;
+    private int[] yearSteps;
+    private int lastPlanted;
+    private int lastCut;
+    private long treeBytes;
+
+    private int year;
+    private double[] meanHeights;
+    private int[] treeCounts;
+    private long[] reapedCounts;
+    private double[] reapedHeights;
+    private long[] plantedCounts;
+    private long[] cutCounts;
+
+    /**
+     * Starts recording a forest as it is now, as year 0.
+     *
+     * @param trees the trees of the forest
+     * @param meanHeight the average height of the trees
+     * @param budget the most bytes the compressed trees may take
+     */
+    ForestHistory(TreeColumns trees, double meanHeight, long budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Budget must not be negative: " + budget);
+        }
+        this.budget = budget;
+        this.deflater = new Deflater(Deflater.BEST_SPEED);
+        this.events = new Encoder();
+        this.block = new Encoder();
+        this.changes = new ArrayList<>();
+        this.year = 0;
+        this.meanHeights = new double[16];
+        this.treeCounts = new int[16];
+        this.reapedCounts = new long[16];
+        this.reapedHeights = new double[16];
+        this.plantedCounts = new long[16];
+        this.cutCounts = new long[16];
+        this.meanHeights[0] = meanHeight;
+        this.treeCounts[0] = trees.size();
+        keyframe(trees);
+    }
+
+    /**
+     * Records a tree planted at the end of the forest.
+     *
+     * @param trees the trees of the forest, with the new tree last
+     */
+    void logPlant(TreeColumns trees) {
+        logPlants(trees, trees.size() - 1, trees.size());
+    }
+
+    /**
+     * Records trees planted at the end of the forest.
+     *
+     * @param trees the trees of the forest
+     * @param from the position of the first new tree
+     * @param to the position after the last new tree
+     */
+    void logPlants(TreeColumns trees, int from, int to) {
+        plantedCounts[year] += to - from;
+        if (!tracking) {
+            return;
+        }
+        for (int index = from; index < to; index++) {
+            int id = trees.getId(index);
+            events.writeByte(PLANT);
+            events.writeSignedVarint(id - lastPlanted);
+            events.writeDouble(trees.getHeight(index));
+            events.writeDouble(trees.getGrowthRate(index));
+            lastPlanted = id;
+        }
+    }
+
+    /**
+     * Records a tree being cut down.
+     *
+     * @param treeNumber the number of the tree
+     */
+    void logCut(int treeNumber) {
+        cutCounts[year]++;
+        writeCut(treeNumber);
+    }
+
+    /**
+     * Records the trees at several positions being cut down.
+     *
+     * @param trees the trees of the forest, before the cut trees are removed
+     * @param positions the positions of the cut trees
+     */
+    void logCuts(TreeColumns trees, int[] positions) {
+        cutCounts[year] += positions.length;
+        for (int position : positions) {
+            writeCut(trees.getId(position));
+        }
+    }
+
+    /**
+     * Records the trees at several positions being reaped, and adds their heights to the year's reaped volume.
+     *
+     * @param trees the trees of the forest, before the reaped trees are removed
+     * @param positions the positions of the reaped trees
+     */
+    void logReap(TreeColumns trees, int[] positions) {
+        reapedCounts[year] += positions.length;
+        double total = 0;
+        for (int position : positions) {
+            total += trees.getHeight(position);
+            writeCut(trees.getId(position));
+        }
+        reapedHeights[year] += total;
+    }
+
+    private void writeCut(int treeNumber) {
+        if (tracking) {
+            events.writeByte(CUT);
+            events.writeSignedVarint(treeNumber - lastCut);
+            lastCut = treeNumber;
+        }
+    }
+
+    /**
+     * Closes the current year after the forest has grown, and starts the year the growth ended in.
+     * If the compressed trees no longer fit the budget, a new keyframe is taken from the grown trees.
+     *
+     * @param trees the trees of the forest after growing
+     * @param years the number of years the forest grew
+     * @param meanHeight the average height of the trees after growing
+     */
+    void logGrow(TreeColumns trees, int years, double meanHeight) {
+        if (tracking) {
+            int step = changes.size();
+            if (step == yearSteps.length) {
+                yearSteps = Arrays.copyOf(yearSteps, step * 2);
+                yearLengths = Arrays.copyOf(yearLengths, step * 2);
+            }
+            yearSteps[step] = years;
+            yearLengths[step] = events.size;
+            byte[] compressed = compress(events);
+            changes.add(compressed);
+            treeBytes += compressed.length;
+            events.size = 0;
+            lastPlanted = 0;
+            lastCut = 0;
+        }
+        for (int skipped = 1; skipped < years; skipped++) {
+            nextYear(-1, Double.NaN);
+        }
+        nextYear(trees.size(), meanHeight);
+        if (tracking && treeBytes > budget) {
+            keyframe(trees);
+        }
+    }
+
+    private void nextYear(int trees, double meanHeight) {
+        if (treeCounts.length <= year + 1) {
+            int length = treeCounts.length * 2;
+            meanHeights = Arrays.copyOf(meanHeights, length);
+            treeCounts = Arrays.copyOf(treeCounts, length);
+            reapedCounts = Arrays.copyOf(reapedCounts, length);
+            reapedHeights = Arrays.copyOf(reapedHeights, length);
+            plantedCounts = Arrays.copyOf(plantedCounts, length);
+            cutCounts = Arrays.copyOf(cutCounts, length);
+        }
+        year++;
+        meanHeights[year] = meanHeight;
+        treeCounts[year] = trees;
+    }
+
+    /**
+     * Replaces everything recorded about single trees with a keyframe of the trees as they are now.
+     */
+    private void keyframe(TreeColumns trees) {
+        changes.clear();
+        yearSteps = new int[16];
+        yearLengths = new int[16];
+        events.size = 0;
+        lastPlanted = 0;
+        lastCut = 0;
+        firstYear = year;
+        tracking = true;
+
+        int size = trees.size();
+        int blocks = TreeColumns.blockCount(size);
+        keyframeIds = new int[blocks];
+        keyframeBlocks = new byte[blocks][];
+        keyframeLengths = new int[blocks];
+        treeBytes = 0;
+        for (int blockIndex = 0; blockIndex < blocks; blockIndex++) {
+            int from = blockIndex * TreeColumns.BLOCK_SIZE;
+            int to = Math.min(from + TreeColumns.BLOCK_SIZE, size);
+            block.size = 0;
+            block.writeVarint(to - from);
+            int previous = trees.getId(from);
+            keyframeIds[blockIndex] = previous;
+            for (int index = from; index < to; index++) {
+                int id = trees.getId(index);
+                block.writeVarint(id - previous);
+                previous = id;
+            }
+            for (int index = from; index < to; index++) {
+                block.writeDouble(trees.getHeight(index));
+            }
+            for (int index = from; index < to; index++) {
+                block.writeDouble(trees.getGrowthRate(index));
+            }
+            keyframeLengths[blockIndex] = block.size;
+            keyframeBlocks[blockIndex] = compress(block);
+            treeBytes += keyframeBlocks[blockIndex].length;
+            if (treeBytes > budget) {
+                // Not even the keyframe fits; only the yearly totals are kept from now on
+                tracking = false;
+                keyframeIds = new int[0];
+                keyframeBlocks = new byte[0][];
+                treeBytes = 0;
+                return;
+            }
+        }
+    }
+
+    private byte[] compress(Encoder encoder) {
+        if (encoder.size == 0) {
+            return new byte[0];
+        }
+        deflater.reset();
+        deflater.setInput(encoder.bytes, 0, encoder.size);
+        deflater.finish();
+        byte[] output = new byte[Math.max(64, encoder.size / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            length += deflater.deflate(output, length, output.length - length);
+        }
+        return Arrays.copyOf(output, length);
+    }
+
+    private static Decoder inflate(byte[] compressed, int length) {
+        byte[] bytes = new byte[length];
+        if (length > 0) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                int read = 0;
+                while (read < length && !inflater.finished()) {
+                    read += inflater.inflate(bytes, read, length - read);
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt forest history", e);
+            } finally {
+                inflater.end();
+            }
+        }
+        return new Decoder(bytes, length);
+    }
+
+    /**
+     * Gets the height of a tree each year, just after that year's growth.
+     *
+     * @param treeNumber the number of the tree, as shown by print()
+     * @return the heights from getFirstTreeYear() to getYear(), with NaN for the years the tree was not standing
+     */
+    public double[] getHeights(int treeNumber) {
+        double[] heights = new double[year - firstYear + 1];
+        Arrays.fill(heights, Double.NaN);
+        if (!tracking) {
+            return heights;
+        }
+        boolean standing = false;
+        double height = 0;
+        double growthRate = 0;
+        int blockIndex = findBlock(treeNumber);
+        if (blockIndex >= 0) {
+            Decoder decoder = inflate(keyframeBlocks[blockIndex], keyframeLengths[blockIndex]);
+            int count = decoder.readVarint();
+            int id = keyframeIds[blockIndex];
+            int position = -1;
+            for (int index = 0; index < count; index++) {
+                id += decoder.readVarint();
+                if (id == treeNumber) {
+                    position = index;
+                }
+            }
+            if (position >= 0) {
+                standing = true;
+                height = decoder.doubleAt(decoder.position + position * Double.BYTES);
+                growthRate = decoder.doubleAt(decoder.position + (count + position) * Double.BYTES);
+                heights[0] = height;
+            }
+        }
+
+        int offset = 0;
+        for (int step = 0; step < changes.size(); step++) {
+            Decoder decoder = inflate(changes.get(step), yearLengths[step]);
+            int planted = 0;
+            int cut = 0;
+            while (decoder.position < decoder.length) {
+                byte code = decoder.readByte();
+                if (code == PLANT) {
+                    planted += decoder.readSignedVarint();
+                    double plantedHeight = decoder.readDouble();
+                    double plantedRate = decoder.readDouble();
+                    if (planted == treeNumber) {
+                        standing = true;
+                        height = plantedHeight;
+                        growthRate = plantedRate;
+                    }
+                } else {
+                    cut += decoder.readSignedVarint();
+                    if (cut == treeNumber) {
+                        standing = false;
+                    }
+                }
+            }
+            int steps = yearSteps[step];
+            if (standing) {
+                double factor = 1 + growthRate / 100;
+                for (int grown = 1; grown < steps; grown++) {
+                    heights[offset + grown] = height * Math.pow(factor, grown);
+                }
+                height = steps == 1 ? Tree.grownHeight(height, growthRate) : height * Math.pow(factor, steps);
+                heights[offset + steps] = height;
+            }
+            offset += steps;
+        }
+        return heights;
+    }
+
+    /**
+     * Finds the keyframe block that would hold a tree number.
+     */
+    private int findBlock(int treeNumber) {
+        int low = 0;
+        int high = keyframeIds.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (keyframeIds[middle] <= treeNumber) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the average height of the forest each year, just after that year's growth.
+     *
+     * @return the average heights from year 0 to getYear(), with NaN for years inside a multi-year growth
+     */
+    public double[] getAverageHeights() {
+        return Arrays.copyOf(meanHeights, year + 1);
+    }
+
+    /**
+     * Gets the number of trees in the forest each year, just after that year's growth.
+     *
+     * @return the tree counts from year 0 to getYear(), with -1 for years inside a multi-year growth
+     */
+    public int[] getTreeCounts() {
+        return Arrays.copyOf(treeCounts, year + 1);
+    }
+
+    /**
+     * Gets the number of trees reaped each year.
+     *
+     * @return the reaped counts from year 0 to getYear()
+     */
+    public long[] getReapedCounts() {
+        return Arrays.copyOf(reapedCounts, year + 1);
+    }
+
+    /**
+     * Gets the volume reaped each year, as the total height of the reaped trees.
+     *
+     * @return the reaped heights from year 0 to getYear()
+     */
+    public double[] getReapedHeights() {
+        return Arrays.copyOf(reapedHeights, year + 1);
+    }
+
+    /**
+     * Gets the number of trees planted each year, including the replacements of reaped trees.
+     *
+     * @return the planted counts from year 0 to getYear()
+     */
+    public long[] getPlantedCounts() {
+        return Arrays.copyOf(plantedCounts, year + 1);
+    }
+
+    /**
+     * Gets the number of trees cut down each year, not counting reaped trees.
+     *
+     * @return the cut counts from year 0 to getYear()
+     */
+    public long[] getCutCounts() {
+        return Arrays.copyOf(cutCounts, year + 1);
+    }
+
+    /**
+     * Gets the year the forest is in, counted in years of growth since recording started.
+     *
+     * @return the current year
+     */
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * Gets the first year for which the heights of single trees are kept.
+     *
+     * @return the year of the latest keyframe
+     */
+    public int getFirstTreeYear() {
+        return firstYear;
+    }
+
+    /**
+     * Checks whether the heights of single trees are kept. They are not if a keyframe alone passes the budget.
+     *
+     * @return true if getHeights() can answer
+     */
+    public boolean isTrackingTrees() {
+        return tracking;
+    }
+
+    /**
+     * Gets the number of bytes taken by the compressed trees, not counting the changes of the current year.
+     *
+     * @return the bytes in use
+     */
+    public long getBytes() {
+        return treeBytes;
+    }
+
+    /**
+     * Gets the memory budget of the compressed trees.
+     *
+     * @return the most bytes the compressed trees take before a new keyframe replaces them
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Prints the totals of every year: trees, average height, and the trees reaped, planted and cut.
+     */
+    public void print() {
+        System.out.printf("%5s %9s %8s %8s %12s %8s %8s%n", "Year", "Trees", "Average", "Reaped", "Reaped ft",
+                "Planted", "Cut");
+        for (int index = 0; index <= year; index++) {
+            if (treeCounts[index] < 0) {
+                System.out.printf(Locale.ROOT, "%5d %9s %8s %8d %12.2f %8d %8d%n", index, "-", "-",
+                        reapedCounts[index], reapedHeights[index], plantedCounts[index], cutCounts[index]);
+            } else {
+                System.out.printf(Locale.ROOT, "%5d %9d %7.2f' %8d %12.2f %8d %8d%n", index, treeCounts[index],
+                        meanHeights[index], reapedCounts[index], reapedHeights[index], plantedCounts[index],
+                        cutCounts[index]);
+            }
+        }
+        System.out.printf("Tree heights kept from year %d in %.1f of %.1f MB%n%n", firstYear,
+                treeBytes / 1048576.0, budget / 1048576.0);
+    }
+
+    /**
+     * Prints the height of a tree in every year it stood.
+     *
+     * @param treeNumber the number of the tree, as shown by print()
+     */
+    public void printTree(int treeNumber) {
+        double[] heights = getHeights(treeNumber);
+        int printed = 0;
+        for (int index = 0; index < heights.length; index++) {
+            if (!Double.isNaN(heights[index])) {
+                System.out.printf(Locale.ROOT, "%5d %7.2f'%n", firstYear + index, heights[index]);
+                printed++;
+            }
+        }
+        if (printed == 0) {
+            System.out.println("No history of tree number " + treeNumber + " since year " + firstYear);
+        }
+        System.out.println();
+    }
+
+    /**
+     * A growable buffer of varints and little-endian doubles.
+     */
+    private static class Encoder {
+        private byte[] bytes = new byte[1024];
+        private int size;
+
+        void writeByte(int value) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeSignedVarint(int value) {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                writeByte((int) (bits >>> shift));
+            }
+        }
+    }
+
+    /**
+     * Reads what an Encoder wrote.
+     */
+    private static class Decoder {
+        private final byte[] bytes;
+        private final int length;
+        private int position;
+
+        Decoder(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        byte readByte() {
+            return bytes[position++];
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte next = bytes[position++];
+                value |= (next & 0x7F) << shift;
+                if (next >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        int readSignedVarint() {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        double readDouble() {
+            double value = doubleAt(position);
+            position += Double.BYTES;
+            return value;
+        }
+
+        double doubleAt(int offset) {
+            long bits = 0;
+            for (int index = Double.BYTES - 1; index >= 0; index--) {
+                bits = (bits << Byte.SIZE) | (bytes[offset + index] & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+    }
+}
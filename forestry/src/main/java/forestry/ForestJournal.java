@@ -0,0 +1,346 @@
+package forestry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The ForestJournal class is an append-only log of the changes made to a forest since its last checkpoint.
+ * Every add, cut, grow and reap is written as a small fixed-size record, and records are forced to disk in
+ * groups, so a crash loses at most one group of changes. A checkpoint writes the whole forest as a snapshot
+ * and starts an empty journal; loading a forest reads the snapshot and replays the journal on top of it.
+ *
+ * The journal and its snapshot share a checkpoint generation. A journal is only replayed on top of the
+ * snapshot with the same generation, so a crash between writing a snapshot and resetting the journal
+ * never applies the same changes twice.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestJournal implements Closeable {
+    /**
+     * The first four bytes of every journal file, "FJNL" in ASCII.
+     */
+    public static final int MAGIC = 0x4c4e4a46;
+
+    /**
+     * The size in bytes of the journal header and of every record.
+     */
+    public static final int RECORD_SIZE = 32;
+
+    /**
+     * The number of records written to disk together in one forced write.
+     */
+    public static final int GROUP_SIZE = 64;
+
+    private static final short VERSION = 1;
+    private static final int MIN_CHECKPOINT_RECORDS = 1 << 14;
+    private static final int CHECKSUM_OFFSET = 24;
+
+    private static final byte ADD = 1;
+    private static final byte CUT = 2;
+    private static final byte GROW = 3;
+    private static final byte REAP = 4;
+
+    private final String forestName;
+    private final long generation;
+    private long validLength;
+    private long recordCount;
+    private FileChannel channel;
+    private final ByteBuffer pending;
+    private final CRC32 checksum;
+
+    /**
+     * Constructs a journal for a forest file. The file is only opened when the first record is written.
+     *
+     * @param forestName the name of the forest file, without an extension
+     * @param generation the checkpoint generation of the journal
+     * @param validLength the length of the journal that holds complete, valid records
+     * @param recordCount the number of records already in the journal
+     */
+    private ForestJournal(String forestName, long generation, long validLength, long recordCount) {
+        this.forestName = forestName;
+        this.generation = generation;
+        this.validLength = validLength;
+        this.recordCount = recordCount;
+        this.pending = ByteBuffer.allocateDirect(GROUP_SIZE * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.checksum = new CRC32();
+    }
+
+    /**
+     * Creates an empty journal for a new checkpoint, replacing any journal already on disk.
+     *
+     * @param forestName the name of the forest file, without an extension
+     * @param generation the checkpoint generation of the snapshot the journal follows
+     * @return the new journal
+     * @throws IOException if the journal cannot be written
+     */
+    public static ForestJournal create(String forestName, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putShort((short) 0);
+        header.putLong(generation);
+        header.clear();
+
+        try (FileChannel channel = FileChannel.open(journalPath(forestName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+        }
+        return new ForestJournal(forestName, generation, RECORD_SIZE, 0);
+    }
+
+    /**
+     * Replays the journal of a forest file on top of the snapshot it follows.
+     * Replay stops at the first incomplete or damaged record, which is what a crash in the middle of a
+     * write leaves behind; that record and anything after it are dropped when the journal is next written.
+     *
+     * @param forestName the name of the forest file, without an extension
+     * @param forest the forest loaded from the snapshot, which the changes are applied to
+     * @return the journal, ready for more records, or null if there is no journal for this snapshot
+     * @throws IOException if the journal cannot be read
+     */
+    public static ForestJournal replay(String forestName, Forest forest) throws IOException {
+        Path path = journalPath(forestName);
+        if (forest.getGeneration() == 0 || !Files.exists(path)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(GROUP_SIZE * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (!readRecord(channel, buffer) || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION
+                    || buffer.getLong(8) != forest.getGeneration()) {
+                return null;
+            }
+
+            long recordCount = 0;
+            CRC32 checksum = new CRC32();
+            while (readRecord(channel, buffer) && isIntact(buffer, checksum) && apply(buffer, forest)) {
+                recordCount++;
+            }
+            return new ForestJournal(forestName, forest.getGeneration(), RECORD_SIZE * (recordCount + 1), recordCount);
+        }
+    }
+
+    /**
+     * Reads the next record into the start of the buffer.
+     *
+     * @return true if a complete record was read, false at the end of the file
+     */
+    private static boolean readRecord(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear().limit(RECORD_SIZE);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIntact(ByteBuffer record, CRC32 checksum) {
+        checksum.reset();
+        checksum.update(record.clear().limit(CHECKSUM_OFFSET));
+        record.limit(RECORD_SIZE);
+        return (int) checksum.getValue() == record.getInt(CHECKSUM_OFFSET);
+    }
+
+    /**
+     * Applies one record to the forest.
+     *
+     * @return true if the record was applied, false if it does not fit the forest and replay must stop
+     */
+    private static boolean apply(ByteBuffer record, Forest forest) {
+        int value = record.getInt(4);
+        switch (record.get(0)) {
+            case ADD:
+                forest.addTree(new Tree(TreeColumns.decodeSpecies(record.get(1)), value,
+                        record.getDouble(8), record.getDouble(16)));
+                return true;
+            case CUT:
+                return forest.removeTree(value);
+            case GROW:
+                forest.simulateGrowth(value);
+                return true;
+            case REAP:
+                return forest.removeTallerThan(record.getDouble(8)) == value;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Gets the name of the forest file this journal belongs to.
+     *
+     * @return the name of the forest file, without an extension
+     */
+    public String getForestName() {
+        return forestName;
+    }
+
+    /**
+     * Gets the checkpoint generation of the journal.
+     *
+     * @return the checkpoint generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the number of records written since the last checkpoint, including ones not yet on disk.
+     *
+     * @return the number of records
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Decides whether the journal has grown enough that a checkpoint is worth writing.
+     * That is the case once the journal is larger than a snapshot of the forest would be.
+     *
+     * @param treeCount the number of trees in the forest
+     * @return true if a checkpoint should be written
+     */
+    public boolean needsCheckpoint(int treeCount) {
+        return recordCount >= MIN_CHECKPOINT_RECORDS
+                && recordCount * RECORD_SIZE > (long) treeCount * TreeColumns.BYTES_PER_TREE;
+    }
+
+    /**
+     * Records that a tree was added to the end of the forest.
+     *
+     * @param species the species code of the tree
+     * @param year the year the tree was planted
+     * @param height the height of the tree
+     * @param growthRate the growth rate of the tree
+     * @throws IOException if a full group cannot be written
+     */
+    public void logAdd(byte species, int year, double height, double growthRate) throws IOException {
+        append(ADD, species, year, height, growthRate);
+    }
+
+    /**
+     * Records that the tree at a position was cut down.
+     *
+     * @param treeNumber the position of the tree
+     * @throws IOException if a full group cannot be written
+     */
+    public void logCut(int treeNumber) throws IOException {
+        append(CUT, (byte) 0, treeNumber, 0, 0);
+    }
+
+    /**
+     * Records that the forest grew. A single year is replayed with the yearly formula and longer spans
+     * with the closed form, matching Forest.simulateGrowth.
+     *
+     * @param years the number of years grown
+     * @throws IOException if a full group cannot be written
+     */
+    public void logGrow(int years) throws IOException {
+        append(GROW, (byte) 0, years, 0, 0);
+    }
+
+    /**
+     * Records that every tree taller than a height was removed.
+     * The replacement trees are recorded separately as adds.
+     *
+     * @param heightToReap the height above which trees were removed
+     * @param reapedCount the number of trees removed
+     * @throws IOException if a full group cannot be written
+     */
+    public void logReap(double heightToReap, int reapedCount) throws IOException {
+        append(REAP, (byte) 0, reapedCount, heightToReap, 0);
+    }
+
+    private void append(byte operation, byte species, int value, double first, double second) throws IOException {
+        int start = pending.position();
+        pending.put(operation);
+        pending.put(species);
+        pending.putShort((short) 0);
+        pending.putInt(value);
+        pending.putDouble(first);
+        pending.putDouble(second);
+
+        checksum.reset();
+        checksum.update(pending.duplicate().position(start).limit(start + CHECKSUM_OFFSET));
+        pending.putInt((int) checksum.getValue());
+        pending.putInt(0);
+        recordCount++;
+
+        if (!pending.hasRemaining()) {
+            sync();
+        }
+    }
+
+    /**
+     * Gets the number of bytes of records waiting to be written by the next sync.
+     *
+     * @return the number of pending bytes
+     */
+    int getPendingBytes() {
+        return pending.position();
+    }
+
+    /**
+     * Writes every pending record to the journal and forces it to disk.
+     *
+     * @throws IOException if the records cannot be written
+     */
+    public void sync() throws IOException {
+        if (pending.position() == 0) {
+            return;
+        }
+        if (channel == null) {
+            channel = FileChannel.open(journalPath(forestName), StandardOpenOption.WRITE);
+            // Drop anything after the last valid record, such as a record torn by a crash
+            channel.truncate(validLength);
+        }
+        pending.flip();
+        while (pending.hasRemaining()) {
+            validLength += channel.write(pending, validLength);
+        }
+        pending.clear();
+        channel.force(false);
+    }
+
+    /**
+     * Closes the journal without writing pending records. Used when a checkpoint has made them unnecessary.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    void discard() throws IOException {
+        pending.clear();
+        close();
+    }
+
+    /**
+     * Writes any pending records and closes the journal file.
+     *
+     * @throws IOException if the records cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private static Path journalPath(String forestName) {
+        return Path.of(forestName + ".journal");
+    }
+}
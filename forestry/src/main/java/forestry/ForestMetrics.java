@@ -0,0 +1,264 @@
+package forestry;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.EventType;
+
+/**
+ * The ForestMetrics class counts and times every forest operation: reading a CSV file, saving, loading,
+ * growing, reaping, cutting, adding and printing. Each operation records its duration, the number of trees
+ * it handled, the bytes it read or wrote, the trees it reaped, and an estimate of the bytes it allocated.
+ *
+ * The totals are kept while metrics are enabled, with -Dforestry.metrics=true or setEnabled, and a
+ * ForestOperationEvent is written for each operation while a Flight Recorder recording has that event enabled.
+ * When neither is on, an operation only checks two flags and records nothing.
+ *
+ * The allocation estimate is the growth of the calling thread's allocated bytes, so work handed to other
+ * threads, such as a parallel CSV read, is not counted, and operations run on virtual threads report 0.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestMetrics {
+    /**
+     * The operations that are measured, with the method each one is named after.
+     */
+    public enum Operation {
+        READ_FOREST("readForest"),
+        WRITE_CSV("writeForest"),
+        SAVE("save"),
+        LOAD("load"),
+        GROW("simulateYearlyGrowth"),
+        REAP("reap"),
+        CUT("cutTree"),
+        ADD("addTree"),
+        PRINT("print");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Gets the name of the method the operation is named after.
+         *
+         * @return the label of the operation
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final EventType EVENT_TYPE = EventType.getEventType(ForestOperationEvent.class);
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+    private static final OperationMetrics[] METRICS = new OperationMetrics[Operation.values().length];
+
+    static {
+        for (int index = 0; index < METRICS.length; index++) {
+            METRICS[index] = new OperationMetrics();
+        }
+    }
+
+    private static volatile boolean enabled = Boolean.getBoolean("forestry.metrics");
+
+    /**
+     * The ForestMetrics class only has static members.
+     */
+    private ForestMetrics() {
+    }
+
+    /**
+     * Checks whether operations are being added to the totals.
+     *
+     * @return true if metrics are enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops adding operations to the totals. Totals already recorded are kept.
+     *
+     * @param enabled true to record operations
+     */
+    public static void setEnabled(boolean enabled) {
+        ForestMetrics.enabled = enabled;
+    }
+
+    /**
+     * Starts measuring an operation.
+     *
+     * @param operation the operation that is starting
+     * @return the sample to pass to end, or null if neither metrics nor the Flight Recorder event are enabled
+     */
+    static Sample begin(Operation operation) {
+        if (!enabled && !EVENT_TYPE.isEnabled()) {
+            return null;
+        }
+        return new Sample(operation);
+    }
+
+    /**
+     * Finishes measuring an operation and records it.
+     *
+     * @param sample the sample returned by begin, or null to do nothing
+     * @param forest the name of the forest
+     * @param trees the number of trees the operation handled
+     * @param bytes the number of bytes the operation read or wrote
+     * @param reaped the number of trees the operation reaped
+     */
+    static void end(Sample sample, String forest, long trees, long bytes, long reaped) {
+        if (sample == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - sample.startNanos;
+        long allocated = THREADS == null ? 0 : Math.max(0, THREADS.getCurrentThreadAllocatedBytes() - sample.startAllocated);
+        if (enabled) {
+            METRICS[sample.operation.ordinal()].record(nanos, trees, bytes, reaped, allocated);
+        }
+        ForestOperationEvent event = sample.event;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = sample.operation.getLabel();
+                event.forest = forest;
+                event.trees = trees;
+                event.bytes = bytes;
+                event.reaped = reaped;
+                event.allocated = allocated;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Clears the totals of every operation.
+     */
+    public static void reset() {
+        for (OperationMetrics metrics : METRICS) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Gets the number of times an operation was recorded.
+     *
+     * @param operation the operation
+     * @return the number of times it was recorded
+     */
+    public static long getCount(Operation operation) {
+        return METRICS[operation.ordinal()].count.sum();
+    }
+
+    /**
+     * Gets the total time recorded for an operation.
+     *
+     * @param operation the operation
+     * @return the total time in nanoseconds
+     */
+    public static long getTotalNanos(Operation operation) {
+        return METRICS[operation.ordinal()].nanos.sum();
+    }
+
+    /**
+     * Formats the totals of every operation as a table, one row per operation.
+     *
+     * @return the table of totals
+     */
+    public static String snapshot() {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%-21s %8s %11s %10s %10s %12s %14s %8s %14s%n", "Operation", "Count",
+                "Total ms", "Mean us", "Max us", "Trees", "Bytes", "Reaped", "Allocated"));
+        for (Operation operation : Operation.values()) {
+            OperationMetrics metrics = METRICS[operation.ordinal()];
+            long count = metrics.count.sum();
+            long nanos = metrics.nanos.sum();
+            table.append(String.format(Locale.ROOT, "%-21s %8d %11.3f %10.1f %10.1f %12d %14d %8d %14d%n",
+                    operation.getLabel(), count, nanos / 1e6, count == 0 ? 0 : nanos / 1e3 / count,
+                    metrics.maxNanos.get() / 1e3, metrics.trees.sum(), metrics.bytes.sum(),
+                    metrics.reaped.sum(), metrics.allocated.sum()));
+        }
+        return table.toString();
+    }
+
+    /**
+     * Prints the totals of every operation.
+     */
+    public static void print() {
+        System.out.println();
+        if (!enabled) {
+            System.out.println("Metrics are off; turn them on with -Dforestry.metrics=true");
+        }
+        System.out.println(snapshot());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        } catch (UnsupportedOperationException e) {
+            // No allocation counter on this JVM; allocations are reported as 0
+        }
+        return null;
+    }
+
+    /**
+     * The start of one measured operation.
+     */
+    static class Sample {
+        private final Operation operation;
+        private final long startNanos;
+        private final long startAllocated;
+        private final ForestOperationEvent event;
+
+        Sample(Operation operation) {
+            this.operation = operation;
+            if (EVENT_TYPE.isEnabled()) {
+                event = new ForestOperationEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+            this.startAllocated = THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * The totals of one operation, which can be added to from many threads at once.
+     */
+    private static class OperationMetrics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder trees = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder reaped = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+
+        void record(long nanos, long trees, long bytes, long reaped, long allocated) {
+            count.increment();
+            this.nanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            this.trees.add(trees);
+            this.bytes.add(bytes);
+            this.reaped.add(reaped);
+            this.allocated.add(allocated);
+        }
+
+        void reset() {
+            count.reset();
+            nanos.reset();
+            maxNanos.reset();
+            trees.reset();
+            bytes.reset();
+            reaped.reset();
+            allocated.reset();
+        }
+    }
+}
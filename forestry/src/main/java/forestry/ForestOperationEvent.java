@@ -0,0 +1,47 @@
+package forestry;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The ForestOperationEvent class is the Flight Recorder event written for each forest operation.
+ * The event's own start time and duration time the operation; the fields say how much work it did.
+ * Events are only created while a recording has them enabled, for example with
+ * {@code -XX:StartFlightRecording:filename=forestry.jfr}.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+@Name("forestry.ForestOperation")
+@Label("Forest Operation")
+@Category("Forestry")
+@Description("A read, save, load, growth, reap, cut, add or print of a forest")
+@StackTrace(false)
+class ForestOperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Forest")
+    String forest;
+
+    @Label("Trees")
+    @Description("The number of trees read, written, grown, scanned, cut, added or listed")
+    long trees;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Trees Reaped")
+    long reaped;
+
+    @Label("Allocated")
+    @Description("The bytes allocated by the calling thread during the operation")
+    @DataAmount
+    long allocated;
+}
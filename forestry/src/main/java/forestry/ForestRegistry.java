@@ -0,0 +1,191 @@
+package forestry;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The ForestRegistry class keeps every open forest resident, in the order the forests were opened.
+ * Forests are looked up by name or by position, so the user can move between them without reloading.
+ * All the forests named on the command line are read at the same time, each on its own virtual thread,
+ * so startup takes about as long as reading the largest file. Growing every forest also runs one forest per thread.
+ *
+ * Lookups never block. Adding or replacing a forest is synchronized so the names and forests stay in step.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestRegistry {
+    private final ConcurrentHashMap<String, Forest> forests;
+    private final CopyOnWriteArrayList<String> names;
+    private final ParallelForestEngine engine;
+
+    /**
+     * Constructs an empty registry.
+     *
+     * @param engine the parallel engine given to every forest in the registry, or null to run them sequentially
+     */
+    public ForestRegistry(ParallelForestEngine engine) {
+        this.forests = new ConcurrentHashMap<>();
+        this.names = new CopyOnWriteArrayList<>();
+        this.engine = engine;
+    }
+
+    /**
+     * Reads a forest from the CSV file of each name, all at the same time, and adds them to the registry.
+     * The results are reported and registered in the order of the names once every file has been read,
+     * so the messages of different files never mix.
+     *
+     * @param fileNames the names of the CSV files, without the .csv extension
+     */
+    public void loadAll(String... fileNames) {
+        List<Future<CsvReadReport>> reads = new ArrayList<>();
+        Forest[] loaded = new Forest[fileNames.length];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int index = 0; index < fileNames.length; index++) {
+                String fileName = fileNames[index];
+                if (!new File(fileName + ".csv").exists()) {
+                    reads.add(null);
+                    continue;
+                }
+                Forest forest = new Forest(fileName);
+                loaded[index] = forest;
+                reads.add(executor.submit(() -> new ForestCsvReader().read(fileName + ".csv", forest)));
+            }
+
+            for (int index = 0; index < fileNames.length; index++) {
+                String fileName = fileNames[index];
+                if (reads.get(index) == null) {
+                    System.out.println("Error opening " + fileName + ".csv");
+                    continue;
+                }
+                System.out.println("Initializing from " + fileName + "\n");
+                try {
+                    reads.get(index).get().print();
+                    put(fileName, loaded[index]);
+                } catch (ExecutionException e) {
+                    System.out.println("Error opening/reading " + fileName + ".csv");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a forest to the registry, replacing any forest already registered under the same name.
+     * A new name is added after the others; a replaced forest keeps its position.
+     *
+     * @param name the name to register the forest under
+     * @param forest the forest to add
+     * @return the forest that was replaced, or null if the name is new
+     */
+    public synchronized Forest put(String name, Forest forest) {
+        forest.setEngine(engine);
+        Forest previous = forests.put(name, forest);
+        if (previous == null) {
+            names.add(name);
+        }
+        return previous;
+    }
+
+    /**
+     * Gets the forest registered under a name.
+     *
+     * @param name the name of the forest
+     * @return the forest, or null if no forest has that name
+     */
+    public Forest get(String name) {
+        return forests.get(name);
+    }
+
+    /**
+     * Gets the forest at a position in the registry.
+     *
+     * @param index the position of the forest, in the order the forests were added
+     * @return the forest at that position
+     */
+    public Forest get(int index) {
+        return forests.get(names.get(index));
+    }
+
+    /**
+     * Finds the position of a forest in the registry.
+     *
+     * @param name the name of the forest
+     * @return the position of the forest, or -1 if no forest has that name
+     */
+    public int indexOf(String name) {
+        return names.indexOf(name);
+    }
+
+    /**
+     * Gets the names of the forests, in the order they were added.
+     *
+     * @return an unmodifiable list of the names
+     */
+    public List<String> getNames() {
+        return List.copyOf(names);
+    }
+
+    /**
+     * Gets the number of forests in the registry.
+     *
+     * @return the number of forests
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Grows every forest in the registry by the same number of years, each forest on its own virtual thread.
+     *
+     * @param years the number of years to grow
+     */
+    public void growAll(int years) {
+        if (years < 0) {
+            throw new IllegalArgumentException("Years must not be negative: " + years);
+        }
+        List<Future<?>> growths = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String name : names) {
+                Forest forest = forests.get(name);
+                growths.add(executor.submit(() -> forest.simulateGrowth(years)));
+            }
+            for (Future<?> growth : growths) {
+                growth.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Growing a forest failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the journal of every forest, writing any pending changes first.
+     *
+     * @throws IOException if the pending changes of a forest cannot be written; the other journals are still stopped
+     */
+    public void closeJournals() throws IOException {
+        IOException failure = null;
+        for (String name : names) {
+            try {
+                forests.get(name).stopJournal();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
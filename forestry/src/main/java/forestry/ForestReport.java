@@ -0,0 +1,192 @@
+package forestry;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * The ForestReport class renders the trees of a forest as a text report.
+ * A report can show only the summary, a page of trees given by a first tree number or an offset and a limit,
+ * or only the trees of one species or within a range of heights. Rows are read straight from the forest's columns and written through
+ * a ReportWriter, so no Tree objects or formatted strings are created per tree.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestReport {
+    private final Forest forest;
+    private boolean summaryOnly;
+    private int offset;
+    private int firstNumber;
+    private int limit;
+    private boolean speciesFiltered;
+    private Tree.TreeSpecies species;
+    private double minHeight;
+    private double maxHeight;
+
+    /**
+     * Constructs a report listing every tree of the forest.
+     *
+     * @param forest the forest to report on
+     */
+    public ForestReport(Forest forest) {
+        this.forest = forest;
+        summaryOnly = false;
+        offset = 0;
+        firstNumber = 0;
+        limit = Integer.MAX_VALUE;
+        speciesFiltered = false;
+        minHeight = Double.NEGATIVE_INFINITY;
+        maxHeight = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Sets whether the report shows only the summary, without listing any trees.
+     *
+     * @param summaryOnly true to leave out the list of trees
+     */
+    public void setSummaryOnly(boolean summaryOnly) {
+        this.summaryOnly = summaryOnly;
+    }
+
+    /**
+     * Limits the list to one page of the matching trees.
+     *
+     * @param offset the number of matching trees to skip
+     * @param limit the largest number of trees to list
+     */
+    public void setPage(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative: " + offset + ", " + limit);
+        }
+        this.offset = offset;
+        this.firstNumber = 0;
+        this.limit = limit;
+    }
+
+    /**
+     * Limits the list to one page of the matching trees, starting at a tree number as shown in the report.
+     * Tree numbers stay the same while other trees are cut, so the page starts at the same tree after cuts;
+     * if that tree was cut, the page starts at the next tree still standing.
+     *
+     * @param firstNumber the number of the first tree to list
+     * @param limit the largest number of trees to list
+     */
+    public void setPageFrom(int firstNumber, int limit) {
+        if (firstNumber < 0 || limit < 0) {
+            throw new IllegalArgumentException("Tree number and limit must not be negative: " + firstNumber + ", "
+                    + limit);
+        }
+        this.offset = 0;
+        this.firstNumber = firstNumber;
+        this.limit = limit;
+    }
+
+    /**
+     * Limits the list to the trees of one species.
+     *
+     * @param species the species to list, or null for trees without one
+     */
+    public void setSpecies(Tree.TreeSpecies species) {
+        this.species = species;
+        speciesFiltered = true;
+    }
+
+    /**
+     * Limits the list to the trees whose height is within a range.
+     *
+     * @param minHeight the smallest height to list, inclusive
+     * @param maxHeight the largest height to list, inclusive
+     */
+    public void setHeightRange(double minHeight, double maxHeight) {
+        this.minHeight = minHeight;
+        this.maxHeight = maxHeight;
+    }
+
+    /**
+     * Writes the report to the console.
+     */
+    public void print() {
+        try {
+            write(new ReportWriter(System.out, false));
+        } catch (IOException e) {
+            System.out.println("Error printing report: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the report to a file, replacing anything already in it.
+     *
+     * @param fileName the name of the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(String fileName) throws IOException {
+        try (ReportWriter output = new ReportWriter(new FileOutputStream(fileName), true)) {
+            write(output);
+        }
+    }
+
+    /**
+     * Writes the report: the forest name, the listed trees with their positions, and the summary.
+     * The writer is flushed at the end.
+     *
+     * @param output the writer to write to
+     * @throws IOException if the report cannot be written
+     */
+    public void write(ReportWriter output) throws IOException {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.PRINT);
+        long startBytes = output.getBytesWritten();
+        TreeColumns trees = forest.getColumns();
+        boolean filtered = speciesFiltered || minHeight > Double.NEGATIVE_INFINITY
+                || maxHeight < Double.POSITIVE_INFINITY;
+        byte speciesCode = TreeColumns.encodeSpecies(species);
+        byte[] speciesColumn = trees.speciesColumn();
+        double[] heights = trees.heightColumn();
+
+        output.newLine().append("Forest name: ").append(String.valueOf(forest.getName())).newLine();
+
+        int size = trees.size();
+        int first = trees.indexOfIdFrom(firstNumber);
+        int matching = size;
+        int listed = 0;
+        if (!filtered) {
+            if (!summaryOnly) {
+                for (int index = first + offset; index < size && listed < limit; index++, listed++) {
+                    writeTree(output, trees, index);
+                }
+            }
+        } else {
+            matching = 0;
+            for (int index = 0; index < size; index++) {
+                double height = heights[index];
+                if ((speciesFiltered && speciesColumn[index] != speciesCode) || height < minHeight || height > maxHeight) {
+                    continue;
+                }
+                if (!summaryOnly && index >= first && matching >= offset && listed < limit) {
+                    writeTree(output, trees, index);
+                    listed++;
+                }
+                matching++;
+            }
+        }
+
+        if (filtered || (listed < matching && !summaryOnly)) {
+            output.append("Listed ").appendLeft(listed, 0).append(" of ").appendLeft(matching, 0)
+                    .append(" matching trees").newLine();
+        }
+        output.append("There are ").appendLeft(size, 0).append(" trees, with an average height of ")
+                .appendFixed(forest.calculateAverageHeight(), 2, 0).newLine().newLine();
+        output.flush();
+        ForestMetrics.end(sample, forest.getName(), listed, output.getBytesWritten() - startBytes, 0);
+    }
+
+    /**
+     * Writes one row in the layout of Tree.toString(), preceded by the tree's number.
+     */
+    private static void writeTree(ReportWriter output, TreeColumns trees, int index) throws IOException {
+        output.appendRight(trees.getId(index), 4).append(' ')
+                .appendLeft(String.valueOf(trees.getSpecies(index)), 5).append(' ')
+                .appendLeft(trees.getYearPlanting(index), 5).append(' ')
+                .appendFixed(trees.getHeight(index), 2, 5).append("' ")
+                .appendFixed(trees.getGrowthRate(index), 2, 5).append('%').newLine();
+    }
+}
@@ -0,0 +1,176 @@
+package forestry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The ForestSaver class writes forest files on background threads, so saving a large forest does not hold up
+ * the console or the simulation. Each save writes a snapshot that shares the forest's columns until the forest
+ * next changes them, so taking the snapshot costs no copy, and growth and reaps carry on while the file is written.
+ * Every file is written to a temporary file, forced to disk and renamed over the old file, as a checkpoint is.
+ *
+ * Only one save to a file is written at a time. Saves to a file that arrive while it is being written wait
+ * as a single queued save holding the newest snapshot; each new save replaces the queued snapshot, and every
+ * caller whose save was merged gets the result of the write that covered it.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestSaver {
+    private final ExecutorService executor;
+    private final HashMap<Path, Slot> slots;
+    private long writes;
+    private long merged;
+
+    /**
+     * Constructs a saver that writes each file on a new virtual thread.
+     */
+    public ForestSaver() {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("forest-save-", 0).factory());
+        this.slots = new HashMap<>();
+    }
+
+    /**
+     * Saves a snapshot of a forest to a file in the background.
+     * The snapshot is taken before this returns, so changes made afterwards are not saved.
+     *
+     * @param fileName the name of the file, including its extension
+     * @param forest the forest to save, from the thread that changes it; it may change again once this returns
+     * @return a future completed with true once the file is written, or false if it could not be written
+     */
+    public CompletableFuture<Boolean> save(String fileName, Forest forest) {
+        Forest snapshot = forest.share();
+        Path path = Path.of(fileName).toAbsolutePath().normalize();
+        synchronized (this) {
+            Slot slot = slots.computeIfAbsent(path, key -> new Slot(fileName));
+            if (slot.queued != null) {
+                slot.queued = snapshot;
+                merged++;
+                return slot.queuedResult;
+            }
+            slot.queued = snapshot;
+            slot.queuedResult = new CompletableFuture<>();
+            CompletableFuture<Boolean> result = slot.queuedResult;
+            if (!slot.writing) {
+                startNext(path, slot);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Starts writing the queued snapshot of a file. Called while holding the lock.
+     */
+    private void startNext(Path path, Slot slot) {
+        Forest snapshot = slot.queued;
+        CompletableFuture<Boolean> result = slot.queuedResult;
+        slot.queued = null;
+        slot.queuedResult = null;
+        slot.writing = true;
+        executor.execute(() -> {
+            try {
+                result.complete(write(slot.fileName, snapshot));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                finished(path, slot);
+            }
+        });
+    }
+
+    /**
+     * Starts the save queued behind a finished write, or forgets the file if none is queued.
+     */
+    private synchronized void finished(Path path, Slot slot) {
+        slot.writing = false;
+        writes++;
+        if (slot.queued != null) {
+            startNext(path, slot);
+        } else {
+            slots.remove(path);
+        }
+        notifyAll();
+    }
+
+    private static boolean write(String fileName, Forest snapshot) {
+        ForestMetrics.Sample sample = ForestMetrics.begin(ForestMetrics.Operation.SAVE);
+        try {
+            Forest.getCache().invalidate(fileName);
+            long written = ForestFile.writeAtomically(fileName, snapshot, 0);
+            ForestMetrics.end(sample, snapshot.getName(), snapshot.size(), written, 0);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Waits until no save to a file is being written or queued, so the file can be written directly.
+     *
+     * @param fileName the name of the file, including its extension
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized void await(String fileName) throws InterruptedException {
+        Path path = Path.of(fileName).toAbsolutePath().normalize();
+        while (slots.containsKey(path)) {
+            wait();
+        }
+    }
+
+    /**
+     * Waits until every save started so far has been written.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized void awaitAll() throws InterruptedException {
+        while (!slots.isEmpty()) {
+            wait();
+        }
+    }
+
+    /**
+     * Gets the number of saves being written or waiting to be written.
+     *
+     * @return the number of files with a save in progress
+     */
+    public synchronized int getPending() {
+        return slots.size();
+    }
+
+    /**
+     * Gets the number of files written so far.
+     *
+     * @return the number of finished writes, including those that failed
+     */
+    public synchronized long getWrites() {
+        return writes;
+    }
+
+    /**
+     * Gets the number of saves merged into a later save of the same file instead of being written on their own.
+     *
+     * @return the number of merged saves
+     */
+    public synchronized long getMerged() {
+        return merged;
+    }
+
+    /**
+     * The save in progress for one file and the newest save waiting behind it.
+     */
+    private static class Slot {
+        private final String fileName;
+        private boolean writing;
+        private Forest queued;
+        private CompletableFuture<Boolean> queuedResult;
+
+        Slot(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package forestry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The ForestScript class runs a forest command script without a keyboard.
+ * A script uses the verbs of the menu, one command per line, with their numbers on the same line:
+ * <pre>
+ * P            print the forest
+ * A [count]    add count random trees, 1 if left out
+ * C number     cut down the tree with that number
+ * G [years]    grow every tree, 1 year if left out
+ * R height     reap the trees taller than height
+ * S [name]     save the forest, to its own file if no name is given
+ * L name       load a forest, which the rest of the script works on
+ * </pre>
+ * Blank lines and lines starting with # are ignored.
+ *
+ * The script is compiled into a list of operations, which is then optimized before it runs:
+ * consecutive grows become one multi-year step, consecutive adds become one bulk plant, and a save is dropped
+ * when a later save writes the same file before anything loads it. Each stage is timed and the times are printed
+ * when the script finishes.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestScript {
+    private final String fileName;
+    private final int commandCount;
+    private final List<Operation> operations;
+    private final long compileNanos;
+    private long optimizeNanos;
+    private final long seed;
+
+    /**
+     * Constructs a script from compiled operations.
+     *
+     * @param fileName the file the script was read from
+     * @param commandCount the number of commands in the script
+     * @param operations the compiled operations
+     * @param compileNanos the time spent reading and compiling the script
+     * @param seed the seed of the trees planted by adds
+     */
+    private ForestScript(String fileName, int commandCount, List<Operation> operations, long compileNanos, long seed) {
+        this.fileName = fileName;
+        this.commandCount = commandCount;
+        this.operations = operations;
+        this.compileNanos = compileNanos;
+        this.seed = seed;
+    }
+
+    /**
+     * Reads and compiles a script file, then optimizes it.
+     *
+     * @param fileName the name of the script file
+     * @param seed the seed of the trees planted by adds, so a script plants the same trees on every run
+     * @return the optimized script
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line of the script is not a valid command
+     */
+    public static ForestScript read(String fileName, long seed) throws IOException {
+        long start = System.nanoTime();
+        List<String> lines = Files.readAllLines(Path.of(fileName));
+        List<Operation> operations = new ArrayList<>();
+        for (int index = 0; index < lines.size(); index++) {
+            Operation operation = compile(lines.get(index), index + 1);
+            if (operation != null) {
+                operations.add(operation);
+            }
+        }
+        ForestScript script = new ForestScript(fileName, operations.size(), operations, System.nanoTime() - start, seed);
+        script.optimize();
+        return script;
+    }
+
+    /**
+     * Compiles one line of a script.
+     *
+     * @return the operation, or null for a blank line or a comment
+     */
+    private static Operation compile(String line, int lineNumber) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+        String[] tokens = trimmed.split("\\s+");
+        if (tokens[0].length() != 1) {
+            throw invalid(lineNumber, "unknown command \"" + tokens[0] + "\"");
+        }
+        char verb = Character.toUpperCase(tokens[0].charAt(0));
+        Operation operation = new Operation(verb, lineNumber);
+        switch (verb) {
+            case 'P':
+                expectArguments(tokens, 0, 0, lineNumber);
+                break;
+            case 'A':
+            case 'G':
+                expectArguments(tokens, 0, 1, lineNumber);
+                operation.count = tokens.length > 1 ? parseCount(tokens[1], lineNumber) : 1;
+                break;
+            case 'C':
+                expectArguments(tokens, 1, 1, lineNumber);
+                operation.count = parseCount(tokens[1], lineNumber);
+                break;
+            case 'R':
+                expectArguments(tokens, 1, 1, lineNumber);
+                try {
+                    operation.height = Double.parseDouble(tokens[1]);
+                } catch (NumberFormatException e) {
+                    throw invalid(lineNumber, "invalid height \"" + tokens[1] + "\"");
+                }
+                break;
+            case 'S':
+                expectArguments(tokens, 0, 1, lineNumber);
+                operation.name = tokens.length > 1 ? tokens[1] : null;
+                break;
+            case 'L':
+                expectArguments(tokens, 1, 1, lineNumber);
+                operation.name = tokens[1];
+                break;
+            default:
+                throw invalid(lineNumber, "unknown command \"" + tokens[0] + "\"");
+        }
+        return operation;
+    }
+
+    private static void expectArguments(String[] tokens, int min, int max, int lineNumber) {
+        int count = tokens.length - 1;
+        if (count < min || count > max) {
+            throw invalid(lineNumber, tokens[0] + " takes " + (min == max ? String.valueOf(min) : min + " to " + max)
+                    + " arguments but found " + count);
+        }
+    }
+
+    private static int parseCount(String token, int lineNumber) {
+        try {
+            int count = Integer.parseInt(token);
+            if (count >= 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw invalid(lineNumber, "invalid number \"" + token + "\"");
+    }
+
+    private static IllegalArgumentException invalid(int lineNumber, String message) {
+        return new IllegalArgumentException("Line " + lineNumber + ": " + message);
+    }
+
+    /**
+     * Merges consecutive grows and adds, drops grows and adds of nothing, and drops saves whose file is
+     * written again before it is read.
+     */
+    private void optimize() {
+        long start = System.nanoTime();
+        List<Operation> merged = new ArrayList<>();
+        for (Operation operation : operations) {
+            Operation last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last.verb == operation.verb && (operation.verb == 'G' || operation.verb == 'A')
+                    && (long) last.count + operation.count <= Integer.MAX_VALUE) {
+                last.count += operation.count;
+                last.lastLine = operation.lastLine;
+            } else {
+                merged.add(operation);
+            }
+        }
+        merged.removeIf(operation -> (operation.verb == 'G' || operation.verb == 'A') && operation.count == 0);
+
+        // Walk backwards, remembering which files a later save overwrites before anything loads them
+        List<String> overwritten = new ArrayList<>();
+        boolean defaultOverwritten = false;
+        for (int index = merged.size() - 1; index >= 0; index--) {
+            Operation operation = merged.get(index);
+            if (operation.verb == 'L') {
+                overwritten.remove(operation.name);
+                defaultOverwritten = false;
+            } else if (operation.verb == 'S') {
+                if (operation.name == null ? defaultOverwritten : overwritten.contains(operation.name)) {
+                    merged.remove(index);
+                } else if (operation.name == null) {
+                    defaultOverwritten = true;
+                } else {
+                    overwritten.add(operation.name);
+                }
+            }
+        }
+
+        operations.clear();
+        operations.addAll(merged);
+        optimizeNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Runs the script on a forest and prints how long each stage took.
+     *
+     * @param forest the forest to start from
+     * @param forestName the name of the forest's file, used by saves that do not name a file
+     * @return the forest the script finished with, which differs from the starting forest after a load
+     */
+    public Forest run(Forest forest, String forestName) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] nanos = new long[operations.size()];
+        for (int index = 0; index < operations.size(); index++) {
+            Operation operation = operations.get(index);
+            long start = System.nanoTime();
+            switch (operation.verb) {
+                case 'P':
+                    forest.print();
+                    break;
+                case 'A':
+                    forest.plant(operation.count, random.nextLong());
+                    break;
+                case 'C':
+                    forest.cutTree(operation.count);
+                    break;
+                case 'G':
+                    forest.simulateGrowth(operation.count);
+                    break;
+                case 'R':
+                    forest.reap(operation.height);
+                    break;
+                case 'S':
+                    Forest.save(operation.name == null ? forestName : operation.name, forest);
+                    break;
+                case 'L':
+                    Forest loaded = Forest.load(operation.name);
+                    if (loaded != null) {
+                        loaded.setEngine(forest.getEngine());
+                        forest = loaded;
+                        forestName = operation.name;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation " + operation.verb);
+            }
+            nanos[index] = System.nanoTime() - start;
+        }
+        printTimings(nanos);
+        return forest;
+    }
+
+    /**
+     * Gets the number of operations left after optimizing.
+     *
+     * @return the number of operations that run
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    private void printTimings(long[] nanos) {
+        System.out.printf("%nScript %s: %d commands compiled to %d operations%n", fileName, commandCount, operations.size());
+        System.out.printf("%-24s %12s%n", "Stage", "Time");
+        System.out.printf("%-24s %10.3fms%n", "compile", compileNanos / 1e6);
+        System.out.printf("%-24s %10.3fms%n", "optimize", optimizeNanos / 1e6);
+        long total = compileNanos + optimizeNanos;
+        for (int index = 0; index < operations.size(); index++) {
+            System.out.printf("%-24s %10.3fms%n", operations.get(index), nanos[index] / 1e6);
+            total += nanos[index];
+        }
+        System.out.printf("%-24s %10.3fms%n%n", "total", total / 1e6);
+    }
+
+    /**
+     * One compiled command, or several merged ones, with the script lines it came from.
+     */
+    private static class Operation {
+        private final char verb;
+        private final int firstLine;
+        private int lastLine;
+        private int count;
+        private double height;
+        private String name;
+
+        Operation(char verb, int line) {
+            this.verb = verb;
+            this.firstLine = line;
+            this.lastLine = line;
+        }
+
+        @Override
+        public String toString() {
+            String lines = firstLine == lastLine ? "line " + firstLine : "lines " + firstLine + "-" + lastLine;
+            switch (verb) {
+                case 'A':
+                case 'C':
+                case 'G':
+                    return verb + " " + count + " (" + lines + ")";
+                case 'R':
+                    return verb + " " + height + " (" + lines + ")";
+                case 'S':
+                case 'L':
+                    return verb + (name == null ? "" : " " + name) + " (" + lines + ")";
+                default:
+                    return verb + " (" + lines + ")";
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package forestry;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The ForestService class lets other processes on the same host read and change forests over a socket.
+ * Each connection is served by its own virtual thread, so thousands of idle connections cost little.
+ * The forests are held as ConcurrentForest objects, so a connection printing a forest never holds up
+ * a connection growing it.
+ *
+ * The protocol is plain text, one command per line, with the name of the forest after the verb:
+ * <pre>
+ * PRINT forest [first limit]    the forest report, or limit trees from the tree numbered first
+ * STATS forest                  the count, mean and percentiles of the tree heights
+ * ADD forest [count]            plant count random trees, 1 if left out and at most 65536
+ * ROWS forest count             add the count CSV rows that follow, such as Maple,2010,14,5.5
+ * CUT forest number...          cut the trees with the numbers shown by PRINT
+ * CUTWHERE forest filter...     cut every tree matching species=Maple, height=min-max and year=min-max
+ * GROW forest [years]           grow every tree, 1 year if left out
+ * REAP forest height            reap the trees taller than height and replace them
+ * SAVE forest [file]            save the forest to file.db, or to its own name
+ * LOAD forest [file]            replace the forest with file.db, or with its own name
+ * FORESTS                       the names of the forests
+ * QUIT                          close the connection
+ * </pre>
+ * The file of SAVE and LOAD, or the forest name standing in for it, must be a plain name without a directory.
+ * SAVE waits until the file is written, and the file is replaced atomically, one save at a time,
+ * however many connections save it.
+ * Every response starts with a status line. "OK length" is followed by length bytes of text;
+ * "ERR message" has nothing after it. Responses come back in the order of the commands, so a client may send
+ * many commands before reading any response. Responses to commands that arrived together are flushed together.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestService implements Closeable {
+    /**
+     * The most trees one ADD command plants. The columns for them are allocated up front,
+     * so larger plantings are sent as several commands.
+     */
+    static final int MAX_PLANTED = TreeColumns.BLOCK_SIZE * 16;
+
+    private final ServerSocket serverSocket;
+    private final ConcurrentHashMap<String, ConcurrentForest> forests;
+    private final Set<Socket> connections;
+    private final ParallelForestEngine engine;
+    private Thread acceptor;
+
+    /**
+     * Constructs a service listening on a port of the loopback address. Nothing is served until start() is called.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @param engine the parallel engine given to every forest, or null to run them sequentially
+     * @throws IOException if the port cannot be opened
+     */
+    public ForestService(int port, ParallelForestEngine engine) throws IOException {
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.forests = new ConcurrentHashMap<>();
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.engine = engine;
+    }
+
+    /**
+     * Adds a forest to the service, replacing any forest served under the same name.
+     * The forest must not be changed directly once it is served.
+     *
+     * @param name the name clients use for the forest
+     * @param forest the forest to serve
+     */
+    public void add(String name, Forest forest) {
+        forest.setEngine(engine);
+        forests.put(name, new ConcurrentForest(forest));
+    }
+
+    /**
+     * Gets a forest served under a name.
+     *
+     * @param name the name of the forest
+     * @return the forest, or null if no forest has that name
+     */
+    public ConcurrentForest get(String name) {
+        return forests.get(name);
+    }
+
+    /**
+     * Gets the port the service listens on.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts accepting connections, each served on a new virtual thread.
+     */
+    public synchronized void start() {
+        if (acceptor == null) {
+            acceptor = Thread.ofVirtual().name("forest-service").start(this::acceptConnections);
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes every open connection.
+     *
+     * @throws IOException if the listening socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket connection : connections) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                // The connection is being dropped anyway
+            }
+        }
+    }
+
+    private void acceptConnections() {
+        Thread.Builder connectionThreads = Thread.ofVirtual().name("forest-connection-", 0);
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket connection = serverSocket.accept();
+                connections.add(connection);
+                connectionThreads.start(() -> serve(connection));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("Error accepting a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the commands of one connection until the client quits or disconnects.
+     */
+    private void serve(Socket connection) {
+        try (connection;
+             BufferedReader input = new BufferedReader(
+                     new InputStreamReader(connection.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream output = new BufferedOutputStream(connection.getOutputStream(), ReportWriter.BUFFER_SIZE)) {
+            connection.setTcpNoDelay(true);
+            String line;
+            while ((line = input.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (trimmed.equalsIgnoreCase("QUIT")) {
+                    respond(output, "bye\n");
+                    break;
+                }
+                try {
+                    respond(output, execute(trimmed.split("\\s+"), input));
+                } catch (IllegalArgumentException e) {
+                    output.write(("ERR " + e.getMessage() + "\n").getBytes(StandardCharsets.US_ASCII));
+                }
+                // Commands already sent are answered before the responses so far are flushed
+                if (!input.ready()) {
+                    output.flush();
+                }
+            }
+            output.flush();
+        } catch (SocketException e) {
+            // The client disconnected or the service was closed
+        } catch (IOException e) {
+            System.out.println("Error serving a connection: " + e.getMessage());
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    private static void respond(OutputStream output, String body) throws IOException {
+        respond(output, body.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void respond(OutputStream output, byte[] body) throws IOException {
+        output.write(("OK " + body.length + "\n").getBytes(StandardCharsets.US_ASCII));
+        output.write(body);
+    }
+
+    /**
+     * Runs one command and gets the text of its response.
+     *
+     * @param tokens the verb, the forest name and the arguments of the command
+     * @param input the connection, read from by commands that take rows
+     * @return the text of the response
+     * @throws IllegalArgumentException if the command is not valid
+     */
+    private byte[] execute(String[] tokens, BufferedReader input) throws IOException {
+        String verb = tokens[0].toUpperCase(Locale.ROOT);
+        if (verb.equals("FORESTS")) {
+            return String.join("\n", forests.keySet()).concat("\n").getBytes(StandardCharsets.US_ASCII);
+        }
+        if (tokens.length < 2) {
+            throw new IllegalArgumentException(verb + " needs the name of a forest");
+        }
+        String name = tokens[1];
+        if (verb.equals("LOAD")) {
+            String fileName = parseFileName(tokens.length > 2 ? tokens[2] : name);
+            Forest loaded = Forest.load(fileName);
+            if (loaded == null) {
+                throw new IllegalArgumentException("Error opening/reading " + fileName + ".db");
+            }
+            loaded.setEngine(engine);
+            ConcurrentForest replaced = forests.put(name, new ConcurrentForest(loaded));
+            if (replaced != null) {
+                try {
+                    replaced.stopJournal();
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Loaded " + loaded.size()
+                            + " trees, but the journal of the replaced forest could not be written: " + e.getMessage());
+                }
+            }
+            return text("Loaded " + loaded.size() + " trees");
+        }
+        ConcurrentForest forest = forests.get(name);
+        if (forest == null) {
+            throw new IllegalArgumentException("No forest named " + name);
+        }
+        switch (verb) {
+            case "PRINT":
+                return print(forest.view(), tokens);
+            case "STATS":
+                return stats(forest.getStatistics());
+            case "ADD":
+                int count = tokens.length > 2 ? parseCount(tokens[2]) : 1;
+                if (count > MAX_PLANTED) {
+                    throw new IllegalArgumentException("ADD plants at most " + MAX_PLANTED + " trees at a time");
+                }
+                forest.plant(count, ThreadLocalRandom.current().nextLong());
+                return text("Planted " + count + " trees");
+            case "ROWS":
+                TreeColumns rows = readRows(input, tokens.length > 2 ? parseCount(tokens[2]) : 0);
+                forest.addTrees(rows);
+                return text("Added " + rows.size() + " trees");
+            case "CUT":
+                int[] treeNumbers = new int[tokens.length - 2];
+                for (int index = 0; index < treeNumbers.length; index++) {
+                    treeNumbers[index] = parseCount(tokens[index + 2]);
+                }
+                return text("Cut " + forest.cutTrees(treeNumbers) + " trees");
+            case "CUTWHERE":
+                return text("Cut " + forest.cutTrees(parseFilter(tokens)) + " trees");
+            case "GROW":
+                int years = tokens.length > 2 ? parseCount(tokens[2]) : 1;
+                forest.simulateGrowth(years);
+                return text("Grew " + years + " years");
+            case "REAP":
+                if (tokens.length < 3) {
+                    throw new IllegalArgumentException("REAP needs a height");
+                }
+                return text("Reaped " + forest.reap(parseHeight(tokens[2])) + " trees");
+            case "SAVE":
+                String fileName = parseFileName(tokens.length > 2 ? tokens[2] : name);
+                if (!forest.save(fileName)) {
+                    throw new IllegalArgumentException("Error saving " + fileName + ".db");
+                }
+                return text("Saved " + fileName);
+            default:
+                throw new IllegalArgumentException("Unknown command " + tokens[0]);
+        }
+    }
+
+    private static byte[] print(ForestView view, String[] tokens) throws IOException {
+        ForestReport report = view.report();
+        if (tokens.length > 2) {
+            if (tokens.length < 4) {
+                throw new IllegalArgumentException("PRINT takes a first tree number and a limit");
+            }
+            report.setPageFrom(parseCount(tokens[2]), parseCount(tokens[3]));
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (ReportWriter output = new ReportWriter(body, true)) {
+            report.write(output);
+        }
+        return body.toByteArray();
+    }
+
+    private static byte[] stats(ForestStatistics statistics) {
+        return String.format(Locale.ROOT, "count %d%nmean %.2f%np10 %.2f%np50 %.2f%np90 %.2f%np99 %.2f%n",
+                statistics.getCount(), statistics.getMean(), statistics.getPercentile(10),
+                statistics.getPercentile(50), statistics.getPercentile(90), statistics.getPercentile(99))
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads rows of species, planting year, height and growth rate sent after a ROWS command.
+     * Every row is read even if one is not valid, so the connection stays in step with the client.
+     * The columns start at one block at most and grow as rows arrive, so a large count costs memory
+     * only for the rows that are actually sent.
+     */
+    private static TreeColumns readRows(BufferedReader input, int count) throws IOException {
+        TreeColumns rows = new TreeColumns(Math.min(count, TreeColumns.BLOCK_SIZE));
+        String error = null;
+        for (int row = 1; row <= count; row++) {
+            String line = input.readLine();
+            if (line == null) {
+                throw new IOException("Connection closed after " + (row - 1) + " of " + count + " rows");
+            }
+            if (error != null) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            try {
+                if (fields.length != 4) {
+                    throw new IllegalArgumentException("expected 4 fields");
+                }
+                rows.add(Tree.TreeSpecies.valueOf(fields[0].trim().toUpperCase(Locale.ROOT)),
+                        Integer.parseInt(fields[1].trim()), Double.parseDouble(fields[2].trim()),
+                        Double.parseDouble(fields[3].trim()));
+            } catch (IllegalArgumentException e) {
+                error = "Row " + row + ": invalid row \"" + line + "\"";
+            }
+        }
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the conditions of a CUTWHERE command. At least one condition is needed,
+     * so a mistyped command cannot clear the whole forest.
+     */
+    private static TreeFilter parseFilter(String[] tokens) {
+        if (tokens.length < 3) {
+            throw new IllegalArgumentException("CUTWHERE needs species=, height= or year=");
+        }
+        TreeFilter filter = new TreeFilter();
+        for (int index = 2; index < tokens.length; index++) {
+            String token = tokens[index];
+            int equals = token.indexOf('=');
+            String key = equals < 0 ? token : token.substring(0, equals).toLowerCase(Locale.ROOT);
+            String value = equals < 0 ? "" : token.substring(equals + 1);
+            try {
+                switch (key) {
+                    case "species":
+                        filter.setSpecies(Tree.TreeSpecies.valueOf(value.toUpperCase(Locale.ROOT)));
+                        break;
+                    case "height":
+                        double[] heights = parseRange(value);
+                        filter.setHeightRange(heights[0], heights[1]);
+                        break;
+                    case "year":
+                        double[] years = parseRange(value);
+                        filter.setYearRange((int) Math.max(years[0], Integer.MIN_VALUE),
+                                (int) Math.min(years[1], Integer.MAX_VALUE));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("expected species=, height= or year=");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid condition \"" + token + "\": " + e.getMessage());
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Reads a range written as min-max, min- or -max. A single number is a range of its own.
+     */
+    private static double[] parseRange(String value) {
+        int dash = value.indexOf('-');
+        if (dash < 0) {
+            double only = Double.parseDouble(value);
+            return new double[] {only, only};
+        }
+        String low = value.substring(0, dash);
+        String high = value.substring(dash + 1);
+        return new double[] {
+                low.isEmpty() ? Double.NEGATIVE_INFINITY : Double.parseDouble(low),
+                high.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(high)
+        };
+    }
+
+    private static int parseCount(String token) {
+        try {
+            int count = Integer.parseInt(token);
+            if (count >= 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid number \"" + token + "\"");
+    }
+
+    /**
+     * Checks that a file named by a client is a plain forest name of letters, digits, dashes and underscores,
+     * so a client can only save and load files in the directory the service runs in.
+     */
+    private static String parseFileName(String token) {
+        if (!token.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid file name \"" + token + "\"; use a plain forest name");
+        }
+        return token;
+    }
+
+    private static double parseHeight(String token) {
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid height \"" + token + "\"");
+        }
+    }
+
+    private static byte[] text(String message) {
+        return (message + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,335 @@
+package forestry;
+
+/**
+ * The ForestStatistics class holds summary statistics of a forest's tree heights.
+ * It keeps the running count and sum, the count and total height of each species, the shortest and tallest
+ * heights, and a HeightSketch for percentiles. Adding or removing a tree updates them in constant time, and
+ * every read is constant time, so printing a summary never scans the trees.
+ *
+ * Growth changes every height, so the statistics are measured again in the same pass that grows the trees.
+ * That pass walks the trees in fixed blocks of TreeColumns.BLOCK_SIZE and adds the block sums in order,
+ * so statistics measured by several threads and merged match those measured on one thread exactly.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestStatistics {
+    private static final Tree.TreeSpecies[] SPECIES = Tree.TreeSpecies.values();
+
+    /**
+     * The number of sums kept per block while measuring: the total, then one per species, then trees without one.
+     */
+    static final int SLOTS = SPECIES.length + 2;
+
+    private long count;
+    private double sum;
+    private final long[] speciesCounts;
+    private final double[] speciesSums;
+    private double min;
+    private double max;
+    private boolean extremesKnown;
+    private final HeightSketch sketch;
+
+    /**
+     * Constructs statistics for an empty forest.
+     */
+    public ForestStatistics() {
+        speciesCounts = new long[SLOTS - 1];
+        speciesSums = new double[SLOTS - 1];
+        sketch = new HeightSketch();
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        extremesKnown = true;
+    }
+
+    /**
+     * Measures the statistics of the trees, growing them by the given number of years in the same pass.
+     *
+     * @param trees the trees to measure
+     * @param years the number of years to grow first: 0 for none, 1 for the yearly formula, more for the closed form
+     * @return the statistics of the trees after growing
+     */
+    public static ForestStatistics measure(TreeColumns trees, int years) {
+        ForestStatistics statistics = new ForestStatistics();
+        statistics.remeasure(trees, years);
+        return statistics;
+    }
+
+    /**
+     * Replaces these statistics with those of the trees, growing them by the given number of years in the same pass.
+     * This is measure() without allocating new statistics.
+     *
+     * @param trees the trees to measure
+     * @param years the number of years to grow first: 0 for none, 1 for the yearly formula, more for the closed form
+     */
+    public void remeasure(TreeColumns trees, int years) {
+        clear();
+        int blocks = TreeColumns.blockCount(trees.size());
+        double[] blockSums = new double[blocks * SLOTS];
+        measureBlocks(trees, years, 0, blocks, blockSums);
+        addBlockSums(blockSums, blocks);
+    }
+
+    /**
+     * Grows and measures a range of blocks. Counts, extremes and the sketch go into these statistics;
+     * the height sums of each block go into its slots of blockSums, to be added in order by addBlockSums.
+     *
+     * @param trees the trees to measure
+     * @param years the number of years to grow first
+     * @param fromBlock the first block, inclusive
+     * @param toBlock the last block, exclusive
+     * @param blockSums the sums of every block, SLOTS entries per block
+     */
+    void measureBlocks(TreeColumns trees, int years, int fromBlock, int toBlock, double[] blockSums) {
+        double[] heights = trees.heightColumn();
+        double[] growthRates = trees.growthRateColumn();
+        byte[] species = trees.speciesColumn();
+        int size = trees.size();
+
+        for (int block = fromBlock; block < toBlock; block++) {
+            int offset = block * SLOTS;
+            int from = block * TreeColumns.BLOCK_SIZE;
+            int to = Math.min(from + TreeColumns.BLOCK_SIZE, size);
+            double blockSum = 0;
+            for (int index = from; index < to; index++) {
+                double height = heights[index];
+                if (years == 1) {
+                    height = Tree.grownHeight(height, growthRates[index]);
+                    heights[index] = height;
+                } else if (years > 1) {
+                    height *= Math.pow(1 + growthRates[index] / 100, years);
+                    heights[index] = height;
+                }
+                int slot = slot(species[index]);
+                blockSum += height;
+                blockSums[offset + 1 + slot] += height;
+                speciesCounts[slot]++;
+                min = Math.min(min, height);
+                max = Math.max(max, height);
+                sketch.add(height);
+            }
+            blockSums[offset] = blockSum;
+            count += to - from;
+        }
+    }
+
+    /**
+     * Adds the sums of each block to the running sums, block by block in order.
+     *
+     * @param blockSums the sums of every block, SLOTS entries per block
+     * @param blocks the number of blocks
+     */
+    void addBlockSums(double[] blockSums, int blocks) {
+        for (int block = 0; block < blocks; block++) {
+            int offset = block * SLOTS;
+            sum += blockSums[offset];
+            for (int slot = 0; slot < speciesSums.length; slot++) {
+                speciesSums[slot] += blockSums[offset + 1 + slot];
+            }
+        }
+    }
+
+    /**
+     * Adds the counts, extremes and sketch of another set of statistics to these. Sums are not merged,
+     * since they are added block by block with addBlockSums.
+     *
+     * @param other the statistics of another range of blocks
+     */
+    void mergeCounts(ForestStatistics other) {
+        count += other.count;
+        for (int slot = 0; slot < speciesCounts.length; slot++) {
+            speciesCounts[slot] += other.speciesCounts[slot];
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sketch.merge(other.sketch);
+    }
+
+    /**
+     * Adds every tree in another set of statistics to these, without rescanning any trees.
+     *
+     * @param other the statistics to merge in
+     */
+    public void merge(ForestStatistics other) {
+        mergeCounts(other);
+        sum += other.sum;
+        for (int slot = 0; slot < speciesSums.length; slot++) {
+            speciesSums[slot] += other.speciesSums[slot];
+        }
+        extremesKnown &= other.extremesKnown;
+    }
+
+    /**
+     * Records that a tree was added.
+     *
+     * @param speciesCode the species code of the tree
+     * @param height the height of the tree
+     */
+    public void add(byte speciesCode, double height) {
+        int slot = slot(speciesCode);
+        count++;
+        sum += height;
+        speciesCounts[slot]++;
+        speciesSums[slot] += height;
+        min = Math.min(min, height);
+        max = Math.max(max, height);
+        sketch.add(height);
+    }
+
+    /**
+     * Records that a tree was removed.
+     *
+     * @param speciesCode the species code of the tree
+     * @param height the height of the tree
+     */
+    public void remove(byte speciesCode, double height) {
+        int slot = slot(speciesCode);
+        count--;
+        speciesCounts[slot]--;
+        if (count == 0) {
+            clear();
+            return;
+        }
+        sum -= height;
+        speciesSums[slot] = speciesCounts[slot] == 0 ? 0 : speciesSums[slot] - height;
+        if (height <= min || height >= max) {
+            extremesKnown = false;
+        }
+        sketch.remove(height);
+    }
+
+    /**
+     * Removes every tree from the statistics.
+     */
+    public void clear() {
+        count = 0;
+        sum = 0;
+        for (int slot = 0; slot < speciesCounts.length; slot++) {
+            speciesCounts[slot] = 0;
+            speciesSums[slot] = 0;
+        }
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        extremesKnown = true;
+        sketch.clear();
+    }
+
+    /**
+     * Checks whether the shortest and tallest heights are known. They become unknown when the shortest or
+     * tallest tree is removed, until setExtremes is called.
+     *
+     * @return true if getMin and getMax are up to date
+     */
+    public boolean areExtremesKnown() {
+        return extremesKnown;
+    }
+
+    /**
+     * Sets the shortest and tallest heights after they were looked up again.
+     *
+     * @param min the shortest height
+     * @param max the tallest height
+     */
+    public void setExtremes(double min, double max) {
+        this.min = min;
+        this.max = max;
+        extremesKnown = true;
+    }
+
+    /**
+     * Gets the number of trees.
+     *
+     * @return the number of trees
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the total height of the trees.
+     *
+     * @return the total height
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Gets the average height of the trees.
+     *
+     * @return the average height, or 0 if there are no trees
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Gets the height of the shortest tree.
+     *
+     * @return the shortest height, or 0 if there are no trees
+     */
+    public double getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Gets the height of the tallest tree.
+     *
+     * @return the tallest height, or 0 if there are no trees
+     */
+    public double getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * Estimates the height at a percentile, to within HeightSketch.RELATIVE_ACCURACY.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the estimated height
+     */
+    public double getPercentile(double percentile) {
+        return sketch.getPercentile(percentile);
+    }
+
+    /**
+     * Gets the number of trees of a species.
+     *
+     * @param species the species, or null for trees without one
+     * @return the number of trees of that species
+     */
+    public long getCount(Tree.TreeSpecies species) {
+        return speciesCounts[slot(TreeColumns.encodeSpecies(species))];
+    }
+
+    /**
+     * Gets the average height of the trees of a species.
+     *
+     * @param species the species, or null for trees without one
+     * @return the average height, or 0 if there are no trees of that species
+     */
+    public double getMean(Tree.TreeSpecies species) {
+        int slot = slot(TreeColumns.encodeSpecies(species));
+        return speciesCounts[slot] == 0 ? 0 : speciesSums[slot] / speciesCounts[slot];
+    }
+
+    /**
+     * Prints the statistics: totals, extremes, percentiles and a line for each species present.
+     */
+    public void print() {
+        System.out.printf("%nTrees: %d  Mean: %.2f'  Min: %.2f'  Max: %.2f'%n", count, getMean(), getMin(), getMax());
+        System.out.printf("Percentiles: p10 %.2f'  p50 %.2f'  p90 %.2f'  p99 %.2f'%n",
+                getPercentile(10), getPercentile(50), getPercentile(90), getPercentile(99));
+        for (int slot = 0; slot < speciesCounts.length; slot++) {
+            if (speciesCounts[slot] > 0) {
+                String name = slot < SPECIES.length ? SPECIES[slot].toString() : "NONE";
+                System.out.printf("%-7s %8d trees, average height %.2f'%n",
+                        name, speciesCounts[slot], speciesSums[slot] / speciesCounts[slot]);
+            }
+        }
+        System.out.println();
+    }
+
+    private static int slot(byte speciesCode) {
+        return speciesCode == TreeColumns.NO_SPECIES ? SPECIES.length : speciesCode;
+    }
+}
@@ -0,0 +1,151 @@
+package forestry;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ForestView class is a read-only copy of a forest taken at one moment.
+ * A view holds its own copy of the trees, so it never changes after it is made and can be read from any
+ * number of threads while the forest it came from keeps growing. It has no methods that change the trees.
+ * The height index of the copy is built on the first count, and the extremes of the statistics are looked up
+ * in it on the first read of a percentile or print of the statistics, so every read that builds the index
+ * or touches the statistics is synchronized; every other read is free.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ForestView {
+    private final Forest forest;
+    private final long epoch;
+
+    /**
+     * Constructs a view over a copied forest.
+     *
+     * @param forest the copied forest, which nothing else may hold
+     * @param epoch the number of changes made to the forest before the copy was taken
+     */
+    ForestView(Forest forest, long epoch) {
+        this.forest = forest;
+        this.epoch = epoch;
+    }
+
+    /**
+     * Gets the name of the forest.
+     *
+     * @return the name of the forest
+     */
+    public String getName() {
+        return forest.getName();
+    }
+
+    /**
+     * Gets the number of changes made to the forest before this view was taken.
+     * A view with a larger epoch is newer.
+     *
+     * @return the epoch of the view
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Gets the number of trees in the view.
+     *
+     * @return the number of trees
+     */
+    public int size() {
+        return forest.size();
+    }
+
+    /**
+     * Gets a copy of the tree at the specified position.
+     *
+     * @param position the position of the tree
+     * @return a copy of the tree at that position
+     */
+    public Tree getTree(int position) {
+        return forest.getTree(position);
+    }
+
+    /**
+     * Gets the trees of the view.
+     *
+     * @return an unmodifiable list of copies of the trees
+     */
+    public List<Tree> getTrees() {
+        return Collections.unmodifiableList(forest.getTrees());
+    }
+
+    /**
+     * Gets the average height of the trees in the view.
+     *
+     * @return the average height
+     */
+    public double calculateAverageHeight() {
+        return forest.calculateAverageHeight();
+    }
+
+    /**
+     * Counts the trees in the view taller than a height.
+     *
+     * @param height the height to compare against
+     * @return the number of trees taller than the height
+     */
+    public synchronized int countTallerThan(double height) {
+        return forest.countTallerThan(height);
+    }
+
+    /**
+     * Gets the height at a percentile of the trees in the view.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the approximate height at that percentile
+     */
+    public synchronized double getPercentile(double percentile) {
+        return forest.getStatistics().getPercentile(percentile);
+    }
+
+    /**
+     * Copies the statistics of the view.
+     *
+     * @return new statistics equal to those of the view
+     */
+    synchronized ForestStatistics copyStatistics() {
+        return forest.copyStatistics();
+    }
+
+    /**
+     * Prints the trees of the view in the same layout as Forest.print().
+     */
+    public void print() {
+        forest.print();
+    }
+
+    /**
+     * Prints the statistics of the view.
+     */
+    public synchronized void printStatistics() {
+        forest.getStatistics().print();
+    }
+
+    /**
+     * Creates a report over the view, which can be paged or filtered before it is printed.
+     *
+     * @return a new report listing every tree of the view
+     */
+    public ForestReport report() {
+        return new ForestReport(forest);
+    }
+
+    /**
+     * Saves the view to a file in the binary forest format and waits until it is written.
+     * The save goes through the forest saver, so the file is replaced atomically and saves of the same file
+     * from other threads are written one at a time instead of interleaving.
+     *
+     * @param forestName the name of the file to save to
+     * @return true if the view was saved, false otherwise
+     */
+    public boolean save(String forestName) {
+        return Forest.saveAsync(forestName, forest).join();
+    }
+}
@@ -0,0 +1,546 @@
+package forestry;
+
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.Scanner;
+
+/**
+ * The Forestry class simulates forestry operations, allowing users to manage forests and trees.
+ * Users can perform various actions such as printing forest details, adding trees, cutting trees, simulating growth,
+ * reaping trees, saving forests to files, and loading forests from files.
+ *
+ * The application initializes forests from CSV files provided as command-line arguments.
+ * It then presents a menu-driven interface for users to interact with the forests.
+ * Users can navigate through multiple forests by entering forest names.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class Forestry implements Serializable{
+    private static final Scanner keyboard = new Scanner (System.in);
+
+    /**
+     * The number of threads used for growth and averages, set with -Dforestry.parallelism.
+     * A value of 1 or less keeps every forest sequential.
+     */
+    private static final int PARALLELISM = Integer.getInteger("forestry.parallelism", 1);
+
+    /**
+     * The number of trees below which parallel work is not split further, set with -Dforestry.cutoff.
+     */
+    private static final int SEQUENTIAL_CUTOFF = Integer.getInteger("forestry.cutoff",
+            ParallelForestEngine.DEFAULT_SEQUENTIAL_CUTOFF);
+
+    /**
+     * The command line option that runs a script instead of the menu: --script file forest...
+     */
+    private static final String SCRIPT_OPTION = "--script";
+
+    /**
+     * The command line option that serves forests over a socket instead of the menu: --serve port forest...
+     */
+    private static final String SERVE_OPTION = "--serve";
+
+    /**
+     * The main method is the entry point of the Forestry application.
+     * It initializes forests from CSV files, presents a menu-driven interface for user interaction,
+     * and handles forestry operations based on user input.
+     *
+     * @param args Command-line arguments containing the names of CSV files representing forests.
+     * @throws IOException            If an I/O error occurs while reading forests from files.
+     * @throws ClassNotFoundException If a class not found exception occurs during object deserialization.
+     */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+
+//----Welcome message
+        char inputFromUser;
+        Forest newForestTest;
+        ParallelForestEngine engine = null;
+        /**
+         * Iterates over the command-line arguments representing forest CSV files.
+         * Initializes forests from these files and allows users to interact with them through a menu-driven interface.
+         *
+         * @param args The command-line arguments containing the names of CSV files representing forests.
+         * @throws IOException            If an I/O error occurs while reading forests from files.
+         * @throws ClassNotFoundException If a class not found exception occurs during object deserialization.
+         */
+        if (args.length > 0 && args[0].equals(SCRIPT_OPTION)) {
+            runScript(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals(SERVE_OPTION)) {
+            runService(args);
+            return;
+        }
+
+        System.out.println("Welcome to the Forestry Simulation");
+        System.out.println("----------------------------------");
+        if (PARALLELISM > 1) {
+            engine = new ParallelForestEngine(PARALLELISM, SEQUENTIAL_CUTOFF);
+        }
+        ForestRegistry registry = new ForestRegistry(engine);
+        registry.loadAll(args);
+
+        inputFromUser = ' ';
+        int forestIndex = 0;
+        while (forestIndex < registry.size() && inputFromUser != 'X') {
+            newForestTest = registry.get(forestIndex);
+            int switchTo = -1;
+            do {
+                printMenu();
+                String optionInput = keyboard.next().toUpperCase();
+
+                inputFromUser = optionInput.charAt(0);
+
+                // Use switch statement to perform the corresponding action based on the chosen inputFromUser
+                switch (inputFromUser) {
+                    case 'P':
+                    case 'p':
+                        newForestTest.print();
+                        break;
+                    case 'A':
+                    case 'a':
+                        newForestTest.addTree();
+                        break;
+                    case 'B':
+                    case 'b':
+                        try {
+                            System.out.print("Number of trees to plant: ");
+                            int count = keyboard.nextInt();
+                            System.out.print("Seed: ");
+                            long seed = keyboard.nextLong();
+                            if (count < 0) {
+                                System.out.println("Number of trees must not be negative");
+                            } else {
+                                newForestTest.plant(count, seed);
+                                System.out.println("Planted " + count + " trees\n");
+                            }
+                        } catch (InputMismatchException e) {
+                            System.out.println("That is not a number");
+                            keyboard.next();
+                        }
+                        break;
+                    case 'C':
+                    case 'c':
+                        int treeNumber;
+                        do {
+                            try {
+                                System.out.print("Tree number to cut down: ");
+                                treeNumber = keyboard.nextInt();
+                                if (newForestTest != null) {
+                                    newForestTest.cutTree(treeNumber);
+                                }
+                            } catch (InputMismatchException e) {
+                                System.out.println("That is not an integer");
+                                keyboard.next();
+                                treeNumber = -1;
+                            }
+                        } while (treeNumber < 0);
+                        break;
+                    case 'G':
+                    case 'g':
+                        if (newForestTest != null) {
+                            newForestTest.simulateYearlyGrowth();
+                        }
+                        break;
+                    case 'Y':
+                    case 'y':
+                        int years;
+                        do {
+                            try {
+                                System.out.print("Years to grow: ");
+                                years = keyboard.nextInt();
+                                if (years >= 0) {
+                                    System.out.print("Report trees growing past height (0 for none): ");
+                                    double crossingHeight = keyboard.nextDouble();
+                                    if (crossingHeight > 0) {
+                                        newForestTest.simulateGrowth(years, crossingHeight).print();
+                                    } else {
+                                        newForestTest.simulateGrowth(years);
+                                    }
+                                }
+                            } catch (InputMismatchException e) {
+                                System.out.println("That is not a number");
+                                keyboard.next();
+                                years = -1;
+                            }
+                        } while (years < 0);
+                        break;
+                    case 'R':
+                    case 'r':
+                        double heightToReap;
+                        do {
+                            try {
+                                System.out.print("Height to reap from: ");
+                                heightToReap = keyboard.nextDouble();
+                                if (newForestTest != null) {
+                                    newForestTest.reap(heightToReap);
+                                }
+                            } catch (InputMismatchException e) {
+                                System.out.println("That is not an integer");
+                                keyboard.nextLine();
+                                heightToReap = -1;
+                            }
+                        } while (heightToReap < 0);
+                        break;
+                    case 'H':
+                    case 'h':
+                        try {
+                            System.out.print("Reap heights, separated by commas: ");
+                            String[] heightTokens = keyboard.next().split(",");
+                            double[] reapHeights = new double[heightTokens.length];
+                            for (int index = 0; index < reapHeights.length; index++) {
+                                reapHeights[index] = Double.parseDouble(heightTokens[index]);
+                            }
+                            System.out.print("Years to simulate: ");
+                            int horizon = keyboard.nextInt();
+                            System.out.print("Runs per strategy: ");
+                            int runs = keyboard.nextInt();
+                            System.out.print("Seed: ");
+                            long seed = keyboard.nextLong();
+                            HarvestScenarios scenarios = new HarvestScenarios(newForestTest);
+                            scenarios.setReapHeights(reapHeights);
+                            scenarios.setYears(horizon);
+                            scenarios.setRuns(runs, seed);
+                            scenarios.run(newForestTest.getEngine()).print();
+                        } catch (InputMismatchException e) {
+                            System.out.println("That is not a number");
+                            keyboard.next();
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("Invalid scenario: " + e.getMessage());
+                        }
+                        break;
+                    case 'O':
+                    case 'o':
+                        if (newForestTest.getHistory() == null) {
+                            newForestTest.startHistory(ForestHistory.DEFAULT_BUDGET);
+                            System.out.println("Recording the history of " + newForestTest.getName() + " from now on\n");
+                            break;
+                        }
+                        try {
+                            System.out.print("Tree number to trace (-1 for the yearly totals): ");
+                            int traced = keyboard.nextInt();
+                            if (traced < 0) {
+                                newForestTest.getHistory().print();
+                            } else {
+                                newForestTest.getHistory().printTree(traced);
+                            }
+                        } catch (InputMismatchException e) {
+                            System.out.println("That is not an integer");
+                            keyboard.next();
+                        }
+                        break;
+                    case 'T':
+                    case 't':
+                        try {
+                            System.out.print("Height to list trees above: ");
+                            newForestTest.printTallerThan(keyboard.nextDouble());
+                        } catch (InputMismatchException e) {
+                            System.out.println("That is not a number");
+                            keyboard.next();
+                        }
+                        break;
+                    case 'V':
+                    case 'v':
+                        viewReport(newForestTest);
+                        break;
+                    case 'I':
+                    case 'i':
+                        newForestTest.getStatistics().print();
+                        break;
+                    case 'M':
+                    case 'm':
+                        ForestMetrics.print();
+                        Forest.getCache().print();
+                        break;
+                    case 'S':
+                    case 's':
+                        Forest.saveAsync(newForestTest.getName(), newForestTest);
+                        break;
+                    case 'W':
+                    case 'w':
+                        System.out.print("CSV file to write, without the .csv extension: ");
+                        writeForest(keyboard.next(), newForestTest);
+                        break;
+                    case 'L':
+                    case 'l':
+                        System.out.print("Enter forest name: ");
+                        String forestName = keyboard.next();
+
+                        Forest loaded = Forest.load(forestName);
+                        if (loaded != null) {
+                            newForestTest = loaded;
+                            Forest replaced = registry.put(forestName, newForestTest);
+                            if (replaced != null) {
+                                closeJournal(replaced);
+                            }
+                            forestIndex = registry.indexOf(forestName);
+                            System.out.println("Forest loaded successfully.");
+                        }
+                        break;
+                    case 'F':
+                    case 'f':
+                        System.out.print("Forest to switch to " + registry.getNames() + ": ");
+                        String switchName = keyboard.next();
+                        switchTo = registry.indexOf(switchName);
+                        if (switchTo < 0) {
+                            System.out.println("Forest " + switchName + " is not loaded");
+                        } else {
+                            System.out.println("Switching to " + switchName);
+                        }
+                        break;
+                    case 'E':
+                    case 'e':
+                        try {
+                            System.out.print("Years to grow every forest: ");
+                            int allYears = keyboard.nextInt();
+                            if (allYears < 0) {
+                                System.out.println("Years must not be negative");
+                            } else {
+                                registry.growAll(allYears);
+                                System.out.println("Grew " + registry.size() + " forests by " + allYears + " years\n");
+                            }
+                        } catch (InputMismatchException e) {
+                            System.out.println("That is not a number");
+                            keyboard.next();
+                        }
+                        break;
+                    case 'J':
+                    case 'j':
+                        try {
+                            if (newForestTest.isJournaling()) {
+                                newForestTest.stopJournal();
+                                System.out.println("Journal stopped for " + newForestTest.getName());
+                            } else {
+                                newForestTest.startJournal(newForestTest.getName());
+                                System.out.println("Journaling " + newForestTest.getName() + " to "
+                                        + newForestTest.getName() + ".journal");
+                            }
+                        } catch (IOException e) {
+                            System.out.println("Error journaling: " + e.getMessage());
+                        }
+                        break;
+                    case 'N':
+                    case 'n':
+                        System.out.println("Moving to the next forest");
+                        break;
+                    case 'X':
+                    case 'x':
+                        break;
+                    default:
+                        System.out.println("Invalid menu option, try again \n");
+
+                }// end of switch
+
+            } while (inputFromUser != 'N' && inputFromUser != 'X' && switchTo < 0); // end of do while loop
+
+            forestIndex = switchTo >= 0 ? switchTo : forestIndex + 1;
+        }// end of while loop
+        try {
+            Forest.getSaver().awaitAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            registry.closeJournals();
+        } catch (IOException e) {
+            System.out.println("Error writing journal: " + e.getMessage());
+        }
+
+
+//----Run menu
+        if (engine != null) {
+            engine.shutdown();
+        }
+        System.out.println("\nExiting the Forestry Simulation\n");
+    }// end on main method
+
+
+    /**
+     * Serves the forests named on the command line over a socket on the loopback address until X is entered.
+     *
+     * @param args the serve option, the port, then the names of the forest CSV files
+     */
+    private static void runService(String[] args) {
+        int port;
+        try {
+            port = Integer.parseInt(args[1]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            System.out.println("Usage: Forestry " + SERVE_OPTION + " <port> [forest...]");
+            return;
+        }
+        ParallelForestEngine engine = PARALLELISM > 1 ? new ParallelForestEngine(PARALLELISM, SEQUENTIAL_CUTOFF) : null;
+        ForestRegistry registry = new ForestRegistry(engine);
+        registry.loadAll(Arrays.copyOfRange(args, 2, args.length));
+        try (ForestService service = new ForestService(port, engine)) {
+            for (String name : registry.getNames()) {
+                service.add(name, registry.get(name));
+            }
+            service.start();
+            System.out.println("Serving " + registry.size() + " forests on port " + service.getPort());
+            System.out.print("Enter X to stop: ");
+            while (keyboard.hasNext() && !keyboard.next().equalsIgnoreCase("X")) {
+                System.out.print("Enter X to stop: ");
+            }
+        } catch (IOException e) {
+            System.out.println("Error serving on port " + port + ": " + e.getMessage());
+        } finally {
+            if (engine != null) {
+                engine.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Runs a command script on each forest named after it, without the menu.
+     * The forests are loaded together first, and the script runs on each of them in turn.
+     * If no forest is named, the script starts from an empty forest and is expected to load one.
+     * Adds plant trees from the seed set with -Dforestry.seed, or from a seed that is printed so the run can be repeated.
+     * With -Dforestry.metrics=true the metrics of every operation are printed at the end.
+     *
+     * @param args the script option, the name of the script file, and the names of the forests' CSV files
+     */
+    private static void runScript(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: Forestry " + SCRIPT_OPTION + " <script> [forest...]");
+            return;
+        }
+        ParallelForestEngine engine = PARALLELISM > 1 ? new ParallelForestEngine(PARALLELISM, SEQUENTIAL_CUTOFF) : null;
+        try {
+            long seed = Long.getLong("forestry.seed", System.nanoTime());
+            ForestScript script = ForestScript.read(args[1], seed);
+            System.out.println("Running " + args[1] + " with seed " + seed);
+
+            ForestRegistry registry = new ForestRegistry(engine);
+            long start = System.nanoTime();
+            registry.loadAll(Arrays.copyOfRange(args, 2, args.length));
+            System.out.printf("Loaded %d forests in %.3fms%n", registry.size(), (System.nanoTime() - start) / 1e6);
+
+            if (args.length == 2) {
+                Forest forest = new Forest();
+                forest.setEngine(engine);
+                closeJournal(script.run(forest, null));
+            }
+            for (String name : registry.getNames()) {
+                closeJournal(script.run(registry.get(name), name));
+            }
+            if (ForestMetrics.isEnabled()) {
+                ForestMetrics.print();
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading script " + args[1] + ": " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error in script " + args[1] + ": " + e.getMessage());
+        } finally {
+            if (engine != null) {
+                engine.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Prints the menu options for the forestry simulation.
+     */
+    public static void printMenu() {
+        System.out.print("(P)rint, (A)dd, (B)ulk plant, (C)ut, (G)row, grow (Y)ears, grow (E)very forest, (R)eap, (T)all, (H)arvest plan, hist(O)ry, (V)iew, (I)nfo, (S)ave, (W)rite CSV, (L)oad, (J)ournal, (M)etrics, (F)orest, (N)ext, e(X)it : ");
+    }
+
+    /**
+     * Asks which part of a forest to show and prints it, or writes it to a file.
+     * The report can be the summary only, a page of trees, or the trees of one species within a range of heights.
+     *
+     * @param forest The forest to report on.
+     */
+    private static void viewReport(Forest forest) {
+        ForestReport report = new ForestReport(forest);
+        try {
+            System.out.print("(S)ummary, (P)age or (F)ilter: ");
+            char mode = keyboard.next().toUpperCase().charAt(0);
+            if (mode == 'S') {
+                report.setSummaryOnly(true);
+            } else if (mode == 'P') {
+                System.out.print("First tree number: ");
+                int firstNumber = keyboard.nextInt();
+                System.out.print("Number of trees: ");
+                report.setPageFrom(firstNumber, keyboard.nextInt());
+            } else if (mode == 'F') {
+                System.out.print("Species (ANY for all): ");
+                String species = keyboard.next().toUpperCase();
+                if (!species.equals("ANY")) {
+                    report.setSpecies(Tree.TreeSpecies.valueOf(species));
+                }
+                System.out.print("Minimum height: ");
+                double minHeight = keyboard.nextDouble();
+                System.out.print("Maximum height: ");
+                report.setHeightRange(minHeight, keyboard.nextDouble());
+            } else {
+                System.out.println("Invalid report option");
+                return;
+            }
+            System.out.print("File to write to (- for the screen): ");
+            String fileName = keyboard.next();
+            if (fileName.equals("-")) {
+                report.print();
+            } else {
+                report.writeTo(fileName);
+                System.out.println("Report written to " + fileName + "\n");
+            }
+        } catch (InputMismatchException e) {
+            System.out.println("That is not a number");
+            keyboard.next();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid report option: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error writing report: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes any pending journal records of a forest and stops its journal.
+     *
+     * @param forest The forest whose journal should be closed.
+     */
+    private static void closeJournal(Forest forest) {
+        try {
+            forest.stopJournal();
+        } catch (IOException e) {
+            System.out.println("Error writing journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads forest data from a CSV file into a Forest object.
+     * Each line in the CSV file represents a tree in the forest. The file is memory-mapped and parsed in parallel,
+     * and rows that cannot be read are skipped and reported with their line numbers.
+     *
+     * @param fileName The name of the CSV file containing forest data, without the .csv extension.
+     * @param forest The Forest object to add the trees to.
+     */
+    public static void readForest(String fileName, Forest forest) {
+        try {
+            CsvReadReport report = new ForestCsvReader().read(fileName + ".csv", forest);
+            report.print();
+        } catch (IOException e) {
+            System.out.println("Error opening/reading " + fileName + ".csv");
+        }
+    }
+
+    /**
+     * Writes the trees of a forest to a CSV file that readForest can read back into the same trees.
+     *
+     * @param fileName The name of the CSV file to write, without the .csv extension.
+     * @param forest The Forest object whose trees are written.
+     */
+    public static void writeForest(String fileName, Forest forest) {
+        long start = System.nanoTime();
+        try {
+            long written = new ForestCsvWriter().write(fileName + ".csv", forest);
+            System.out.printf("Wrote %d trees (%d bytes) to %s.csv in %.3fms%n",
+                    forest.size(), written, fileName, (System.nanoTime() - start) / 1e6);
+        } catch (IOException e) {
+            System.out.println("Error writing " + fileName + ".csv: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package forestry;
+
+import java.util.Arrays;
+
+/**
+ * The GrowthCrossings class lists the trees that grow past a given height during a span of years.
+ * For every such tree it records the tree's number, which stays the same when other trees are cut, and the first
+ * year in which it is taller than the height, counting the first simulated year as year 1.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class GrowthCrossings {
+    private final double height;
+    private int[] treeNumbers;
+    private int[] years;
+    private int count;
+
+    /**
+     * Constructs an empty list of crossings for the specified height.
+     *
+     * @param height the height the trees grow past
+     */
+    public GrowthCrossings(double height) {
+        this.height = height;
+        treeNumbers = new int[16];
+        years = new int[16];
+        count = 0;
+    }
+
+    /**
+     * Records that a tree grows past the height in the given year.
+     *
+     * @param treeNumber the number of the tree
+     * @param year the first year in which the tree is taller than the height
+     */
+    void add(int treeNumber, int year) {
+        if (count == treeNumbers.length) {
+            treeNumbers = Arrays.copyOf(treeNumbers, count * 2);
+            years = Arrays.copyOf(years, count * 2);
+        }
+        treeNumbers[count] = treeNumber;
+        years[count] = year;
+        count++;
+    }
+
+    /**
+     * Gets the height the trees grow past.
+     *
+     * @return the crossing height
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of trees that grow past the height.
+     *
+     * @return the number of crossings
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of a tree that grows past the height, as shown by the forest listing and taken by cutTree.
+     *
+     * @param crossing the number of the crossing, from 0 to size() - 1
+     * @return the number of the tree
+     */
+    public int getTreeNumber(int crossing) {
+        return treeNumbers[crossing];
+    }
+
+    /**
+     * Gets the first year in which a tree is taller than the height.
+     *
+     * @param crossing the number of the crossing, from 0 to size() - 1
+     * @return the year of the crossing, where the first simulated year is 1
+     */
+    public int getYear(int crossing) {
+        return years[crossing];
+    }
+
+    /**
+     * Prints one line for every tree that grows past the height.
+     */
+    public void print() {
+        for (int crossing = 0; crossing < count; crossing++) {
+            System.out.printf("Tree %4d grows past %.2f' in year %d%n", treeNumbers[crossing], height, years[crossing]);
+        }
+        System.out.printf("%d trees grow past %.2f'%n%n", count, height);
+    }
+}
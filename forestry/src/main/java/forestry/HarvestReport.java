@@ -0,0 +1,184 @@
+package forestry;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The HarvestReport class holds the yields of every run of a set of harvest scenarios and summarizes
+ * their distribution for each strategy: the number of trees harvested, their total height at harvest,
+ * and the mean height of the trees left standing at the end.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class HarvestReport {
+    private final double[] reapHeights;
+    private final HarvestScenarios.ReplantPolicy[] policies;
+    private final int years;
+    private final long[][] harvested;
+    private final double[][] harvestedHeight;
+    private final int[][] standing;
+    private final double[][] standingMean;
+
+    /**
+     * Constructs an empty report for every pair of reap height and policy.
+     *
+     * @param reapHeights the reap heights of the strategies
+     * @param policies the replanting policies of the strategies
+     * @param runs the number of runs per strategy
+     * @param years the number of years each run simulates
+     */
+    HarvestReport(double[] reapHeights, HarvestScenarios.ReplantPolicy[] policies, int runs, int years) {
+        this.reapHeights = reapHeights.clone();
+        this.policies = policies.clone();
+        this.years = years;
+        int strategies = reapHeights.length * policies.length;
+        this.harvested = new long[strategies][runs];
+        this.harvestedHeight = new double[strategies][runs];
+        this.standing = new int[strategies][runs];
+        this.standingMean = new double[strategies][runs];
+    }
+
+    /**
+     * Records the yields of one run. Each run is recorded by one thread only, into its own slots.
+     */
+    void record(int strategy, int run, long trees, double height, int standingTrees, double meanHeight) {
+        harvested[strategy][run] = trees;
+        harvestedHeight[strategy][run] = height;
+        standing[strategy][run] = standingTrees;
+        standingMean[strategy][run] = meanHeight;
+    }
+
+    /**
+     * Gets the number of strategies, one for every pair of reap height and policy, ordered by reap height first.
+     *
+     * @return the number of strategies
+     */
+    public int getStrategyCount() {
+        return harvested.length;
+    }
+
+    /**
+     * Gets the number of runs of each strategy.
+     *
+     * @return the number of runs
+     */
+    public int getRunCount() {
+        return harvested.length == 0 ? 0 : harvested[0].length;
+    }
+
+    /**
+     * Gets the reap height of a strategy.
+     *
+     * @param strategy the number of the strategy
+     * @return the height above which the strategy harvests trees
+     */
+    public double getReapHeight(int strategy) {
+        return reapHeights[strategy / policies.length];
+    }
+
+    /**
+     * Gets the replanting policy of a strategy.
+     *
+     * @param strategy the number of the strategy
+     * @return the policy the strategy replants by
+     */
+    public HarvestScenarios.ReplantPolicy getPolicy(int strategy) {
+        return policies[strategy % policies.length];
+    }
+
+    /**
+     * Gets the number of trees harvested in one run.
+     *
+     * @param strategy the number of the strategy
+     * @param run the number of the run
+     * @return the number of trees harvested over every year of the run
+     */
+    public long getHarvested(int strategy, int run) {
+        return harvested[strategy][run];
+    }
+
+    /**
+     * Gets the total height of the trees harvested in one run.
+     *
+     * @param strategy the number of the strategy
+     * @param run the number of the run
+     * @return the sum of the heights of the harvested trees when they were harvested
+     */
+    public double getHarvestedHeight(int strategy, int run) {
+        return harvestedHeight[strategy][run];
+    }
+
+    /**
+     * Gets the number of trees standing at the end of one run.
+     *
+     * @param strategy the number of the strategy
+     * @param run the number of the run
+     * @return the number of trees left
+     */
+    public int getStanding(int strategy, int run) {
+        return standing[strategy][run];
+    }
+
+    /**
+     * Gets the mean height of the trees standing at the end of one run.
+     *
+     * @param strategy the number of the strategy
+     * @param run the number of the run
+     * @return the mean height of the trees left, or 0 if none are left
+     */
+    public double getStandingMean(int strategy, int run) {
+        return standingMean[strategy][run];
+    }
+
+    /**
+     * Formats the mean and the 10th and 90th percentiles of every yield, one row per strategy.
+     *
+     * @return the table of yields
+     */
+    public String summary() {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%d runs of %d years per strategy; mean [p10, p90]%n", getRunCount(), years));
+        table.append(String.format("%8s %-12s%36s%39s%30s%n", "Reap", "Replant",
+                "Trees harvested", "Height harvested", "Standing mean height"));
+        for (int strategy = 0; strategy < getStrategyCount(); strategy++) {
+            double[] trees = new double[getRunCount()];
+            for (int run = 0; run < trees.length; run++) {
+                trees[run] = harvested[strategy][run];
+            }
+            table.append(String.format(Locale.ROOT, "%7.2f' %-12s", getReapHeight(strategy), getPolicy(strategy)));
+            appendDistribution(table, trees, 10, 1);
+            appendDistribution(table, harvestedHeight[strategy], 11, 1);
+            appendDistribution(table, standingMean[strategy], 8, 2);
+            table.append(System.lineSeparator());
+        }
+        return table.toString();
+    }
+
+    /**
+     * Prints the mean and the 10th and 90th percentiles of every yield, one row per strategy.
+     */
+    public void print() {
+        System.out.println(summary());
+    }
+
+    private static void appendDistribution(StringBuilder table, double[] values, int width, int decimals) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double total = 0;
+        for (double value : sorted) {
+            total += value;
+        }
+        String number = "%" + width + "." + decimals + "f";
+        table.append(String.format(Locale.ROOT, " " + number + " [" + number + ", " + number + "]",
+                sorted.length == 0 ? 0 : total / sorted.length, percentile(sorted, 10), percentile(sorted, 90)));
+    }
+
+    private static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
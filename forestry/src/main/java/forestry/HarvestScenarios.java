@@ -0,0 +1,247 @@
+package forestry;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The HarvestScenarios class compares harvest strategies by simulating them many times over the same forest.
+ * A strategy is a reap height and a replanting policy. Every strategy is run once per random seed for a number
+ * of years; each year every tree grows, and every tree taller than the reap height is harvested and replaced
+ * as the policy says. The same seeds are used for every strategy, so strategies are compared on the same luck.
+ *
+ * A run never changes the forest. It works on private copies of the height and growth rate columns,
+ * and each worker thread keeps its copies from run to run, so a run costs one copy of those columns into
+ * buffers that already exist instead of a new forest. Runs are spread over the threads of the parallel engine,
+ * or of the common fork-join pool if the forest has none, and they share nothing but the forest they start from,
+ * so they scale with the number of threads.
+ * A run gives the same result on any number of threads.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class HarvestScenarios {
+    /**
+     * What happens in the place of a harvested tree.
+     */
+    public enum ReplantPolicy {
+        /**
+         * A new random tree is planted, as reap() does.
+         */
+        RANDOM,
+        /**
+         * A seedling of the harvested tree is planted, with a random height and the harvested tree's growth rate.
+         */
+        SEEDLING,
+        /**
+         * Nothing is planted, so the forest thins out.
+         */
+        NONE
+    }
+
+    private final Forest forest;
+    private double[] reapHeights;
+    private ReplantPolicy[] policies;
+    private int years;
+    private int runs;
+    private long seed;
+
+    /**
+     * Constructs scenarios over a forest, with no reap heights set, every replanting policy,
+     * 10 years and 100 runs per strategy.
+     * The forest is shared rather than copied, so it may keep changing without affecting the scenarios.
+     *
+     * @param forest the forest every run starts from
+     */
+    public HarvestScenarios(Forest forest) {
+        this.forest = forest.share();
+        this.reapHeights = new double[0];
+        this.policies = ReplantPolicy.values();
+        this.years = 10;
+        this.runs = 100;
+        this.seed = 0;
+    }
+
+    /**
+     * Sets the reap heights to compare.
+     *
+     * @param reapHeights the heights above which trees are harvested
+     */
+    public void setReapHeights(double... reapHeights) {
+        this.reapHeights = reapHeights.clone();
+    }
+
+    /**
+     * Sets the replanting policies to compare.
+     *
+     * @param policies the policies, each tried with every reap height
+     */
+    public void setPolicies(ReplantPolicy... policies) {
+        this.policies = policies.clone();
+    }
+
+    /**
+     * Sets the number of years each run simulates.
+     *
+     * @param years the horizon of every run
+     */
+    public void setYears(int years) {
+        if (years < 0) {
+            throw new IllegalArgumentException("Years must not be negative: " + years);
+        }
+        this.years = years;
+    }
+
+    /**
+     * Sets the number of runs per strategy and the seed their random trees are drawn from.
+     *
+     * @param runs the number of runs, each with its own seed
+     * @param seed the seed that the seed of each run is split off
+     */
+    public void setRuns(int runs, long seed) {
+        if (runs < 1) {
+            throw new IllegalArgumentException("Runs must be at least 1: " + runs);
+        }
+        this.runs = runs;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs every strategy with every seed.
+     *
+     * Without an engine the runs go to the common fork-join pool, so they still use every core.
+     * Runs share nothing with the forest, so the reason forests grow on one thread by default does not apply to them.
+     *
+     * @param engine the engine whose threads run the scenarios, or null to run them on the common pool
+     * @return the yields of every run, grouped by strategy
+     */
+    public HarvestReport run(ParallelForestEngine engine) {
+        int strategies = reapHeights.length * policies.length;
+        HarvestReport report = new HarvestReport(reapHeights, policies, runs, years);
+        long[] runSeeds = new long[runs];
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int run = 0; run < runs; run++) {
+            runSeeds[run] = root.split().nextLong();
+        }
+        TreeColumns trees = forest.getColumns();
+        RunTask task = new RunTask(trees, report, runSeeds, new ConcurrentLinkedQueue<>(), 0, strategies * runs);
+        if (engine != null) {
+            engine.invoke(task);
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        return report;
+    }
+
+    /**
+     * Runs one strategy with one seed and records its yields.
+     */
+    private void runOne(TreeColumns trees, HarvestReport report, int strategy, int run, long runSeed, Buffers buffers) {
+        double reapHeight = reapHeights[strategy / policies.length];
+        ReplantPolicy policy = policies[strategy % policies.length];
+        int size = trees.size();
+        buffers.fill(trees);
+        double[] heights = buffers.heights;
+        double[] growthRates = buffers.growthRates;
+        SplittableRandom random = new SplittableRandom(runSeed);
+
+        long harvested = 0;
+        double harvestedHeight = 0;
+        for (int year = 0; year < years; year++) {
+            for (int index = 0; index < size; index++) {
+                double height = Tree.grownHeight(heights[index], growthRates[index]);
+                if (height <= reapHeight) {
+                    heights[index] = height;
+                    continue;
+                }
+                harvested++;
+                harvestedHeight += height;
+                switch (policy) {
+                    case RANDOM:
+                        heights[index] = Tree.randomHeight(random);
+                        growthRates[index] = Tree.randomGrowthRate(random);
+                        break;
+                    case SEEDLING:
+                        heights[index] = Tree.randomHeight(random);
+                        break;
+                    default:
+                        // The last tree, not grown yet this year, takes the harvested tree's place
+                        size--;
+                        heights[index] = heights[size];
+                        growthRates[index] = growthRates[size];
+                        index--;
+                        break;
+                }
+            }
+        }
+
+        double standingHeight = 0;
+        for (int index = 0; index < size; index++) {
+            standingHeight += heights[index];
+        }
+        report.record(strategy, run, harvested, harvestedHeight, size, size == 0 ? 0 : standingHeight / size);
+    }
+
+    /**
+     * The columns one worker thread copies the forest into for each of its runs.
+     */
+    private static class Buffers {
+        private double[] heights = new double[0];
+        private double[] growthRates = new double[0];
+
+        void fill(TreeColumns trees) {
+            int size = trees.size();
+            if (heights.length < size) {
+                heights = new double[size];
+                growthRates = new double[size];
+            }
+            System.arraycopy(trees.heightColumn(), 0, heights, 0, size);
+            System.arraycopy(trees.growthRateColumn(), 0, growthRates, 0, size);
+        }
+    }
+
+    /**
+     * Runs a range of strategy and seed pairs, splitting it in half until a single run is left.
+     * A leaf borrows a set of buffers left by an earlier run, so no more buffers are made than there are threads.
+     */
+    private class RunTask extends RecursiveAction {
+        private final TreeColumns trees;
+        private final HarvestReport report;
+        private final long[] runSeeds;
+        private final ConcurrentLinkedQueue<Buffers> buffers;
+        private final int from;
+        private final int to;
+
+        RunTask(TreeColumns trees, HarvestReport report, long[] runSeeds, ConcurrentLinkedQueue<Buffers> buffers,
+                int from, int to) {
+            this.trees = trees;
+            this.report = report;
+            this.runSeeds = runSeeds;
+            this.buffers = buffers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RunTask(trees, report, runSeeds, buffers, from, middle),
+                        new RunTask(trees, report, runSeeds, buffers, middle, to));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            Buffers borrowed = buffers.poll();
+            if (borrowed == null) {
+                borrowed = new Buffers();
+            }
+            int strategy = from / runSeeds.length;
+            int run = from % runSeeds.length;
+            runOne(trees, report, strategy, run, runSeeds[run], borrowed);
+            buffers.offer(borrowed);
+        }
+    }
+}
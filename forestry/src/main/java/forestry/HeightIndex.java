@@ -0,0 +1,288 @@
+package forestry;
+
+import java.util.Arrays;
+
+/**
+ * The HeightIndex class keeps the positions of a forest's trees ordered by height.
+ * With the trees in height order, the trees taller than a height are always the last entries of the index,
+ * so finding and counting them costs a binary search plus the number of trees found.
+ *
+ * Removing trees is not that cheap. The columns stay packed, so every tree after a removed one moves down and
+ * its entry in the index has to be renumbered: a reap of k trees finds them in O(log n + k log k) but then
+ * costs one O(n) pass over the columns and one O(n log k) pass over the index. The bulk scans, the journal's
+ * reap records and the file format all rely on packed positions, so a reap removes its trees at once in those
+ * two passes instead of marking them like cuts by number.
+ *
+ * The index is built the first time it is queried and then kept up to date. Added trees are collected
+ * and merged in on the next query. Growth changes every height, but it only changes the order of trees
+ * with different growth rates. If every tree has the same rate, the order is kept as it is. Otherwise the
+ * index is re-sorted on the next query with an adaptive merge sort. A grown index is still nearly in order,
+ * so that sort does little more than one pass.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class HeightIndex {
+    private static final int INSERTION_SORT_SIZE = 32;
+
+    private final TreeColumns trees;
+    private int[] order;
+    private int size;
+    private int sortedCount;
+    private boolean built;
+    private boolean grown;
+    private double minGrowthRate;
+    private double maxGrowthRate;
+
+    /**
+     * Constructs an index over the specified trees. Nothing is sorted until the index is first queried.
+     *
+     * @param trees the trees to index
+     */
+    public HeightIndex(TreeColumns trees) {
+        this.trees = trees;
+        built = false;
+    }
+
+    /**
+     * Constructs an index over a copy of the trees of another index, keeping the order it has already built.
+     *
+     * @param other the index to copy
+     * @param trees the copied trees, which must hold the same trees in the same positions
+     */
+    HeightIndex(HeightIndex other, TreeColumns trees) {
+        this.trees = trees;
+        this.order = other.order == null ? null : other.order.clone();
+        this.size = other.size;
+        this.sortedCount = other.sortedCount;
+        this.built = other.built;
+        this.grown = other.grown;
+        this.minGrowthRate = other.minGrowthRate;
+        this.maxGrowthRate = other.maxGrowthRate;
+    }
+
+    /**
+     * Records that trees were added to the end of the columns.
+     *
+     * @param from the position of the first added tree
+     * @param to the position just after the last added tree
+     */
+    public void added(int from, int to) {
+        if (!built) {
+            return;
+        }
+        if (order.length < to) {
+            order = Arrays.copyOf(order, Math.max(to, order.length + (order.length >> 1)));
+        }
+        for (int position = from; position < to; position++) {
+            order[size++] = position;
+            includeGrowthRate(trees.getGrowthRate(position));
+        }
+    }
+
+    /**
+     * Records that the tree at a position was removed and later trees moved down by one.
+     *
+     * @param position the position of the removed tree
+     */
+    public void removed(int position) {
+        removedAll(new int[]{position}, 1);
+    }
+
+    /**
+     * Records that several trees were removed in one compaction pass and the rest moved down to fill the gaps.
+     * Every entry is renumbered with a binary search over the removed positions, so this costs O(n log count).
+     *
+     * @param positions the positions the removed trees had, in increasing order
+     * @param count the number of removed trees
+     */
+    public void removedAll(int[] positions, int count) {
+        if (!built || count == 0) {
+            return;
+        }
+        int kept = 0;
+        int keptSorted = 0;
+        for (int entry = 0; entry < size; entry++) {
+            int position = order[entry];
+            int before = Arrays.binarySearch(positions, 0, count, position);
+            if (before >= 0) {
+                continue;
+            }
+            order[kept++] = position + before + 1;
+            if (entry < sortedCount) {
+                keptSorted++;
+            }
+        }
+        size = kept;
+        sortedCount = keptSorted;
+    }
+
+    /**
+     * Records that every tree grew. The order stays valid when every tree has the same growth rate.
+     */
+    public void grew() {
+        if (built && (minGrowthRate != maxGrowthRate || minGrowthRate <= -100)) {
+            grown = true;
+        }
+    }
+
+    /**
+     * Counts the trees taller than a height.
+     *
+     * @param height the height a tree must exceed
+     * @return the number of trees taller than the height
+     */
+    public int countTallerThan(double height) {
+        ensureSorted();
+        return size - upperBound(height);
+    }
+
+    /**
+     * Finds the trees taller than a height.
+     *
+     * @param height the height a tree must exceed
+     * @return the positions of the tall trees, in increasing order of position
+     */
+    public int[] findTallerThan(double height) {
+        ensureSorted();
+        int[] found = Arrays.copyOfRange(order, upperBound(height), size);
+        Arrays.sort(found);
+        return found;
+    }
+
+    /**
+     * Finds the tallest trees.
+     *
+     * @param count the number of trees to find
+     * @return the positions of up to count trees, tallest first
+     */
+    public int[] tallest(int count) {
+        ensureSorted();
+        count = Math.max(0, Math.min(count, size));
+        int[] found = new int[count];
+        for (int rank = 0; rank < count; rank++) {
+            found[rank] = order[size - 1 - rank];
+        }
+        return found;
+    }
+
+    /**
+     * Gets the shortest tree.
+     *
+     * @return the position of the shortest tree, or -1 if there are no trees
+     */
+    public int shortest() {
+        ensureSorted();
+        return size == 0 ? -1 : order[0];
+    }
+
+    /**
+     * Brings the index up to date: builds it, re-sorts it after growth, or merges in added trees.
+     */
+    private void ensureSorted() {
+        if (!built) {
+            build();
+        } else if (grown) {
+            sort(order, new int[size], 0, size);
+            sortedCount = size;
+            grown = false;
+            resetGrowthRates();
+        } else if (sortedCount < size) {
+            int[] buffer = new int[size];
+            sort(order, buffer, sortedCount, size);
+            merge(order, buffer, 0, sortedCount, size);
+            sortedCount = size;
+        }
+    }
+
+    private void build() {
+        size = trees.size();
+        order = new int[Math.max(size, 1)];
+        for (int position = 0; position < size; position++) {
+            order[position] = position;
+        }
+        sort(order, new int[size], 0, size);
+        sortedCount = size;
+        built = true;
+        grown = false;
+        resetGrowthRates();
+    }
+
+    private void resetGrowthRates() {
+        minGrowthRate = Double.POSITIVE_INFINITY;
+        maxGrowthRate = Double.NEGATIVE_INFINITY;
+        for (int entry = 0; entry < size; entry++) {
+            includeGrowthRate(trees.getGrowthRate(order[entry]));
+        }
+    }
+
+    private void includeGrowthRate(double growthRate) {
+        minGrowthRate = Math.min(minGrowthRate, growthRate);
+        maxGrowthRate = Math.max(maxGrowthRate, growthRate);
+    }
+
+    /**
+     * Finds the first entry of the sorted index whose tree is taller than the height.
+     */
+    private int upperBound(double height) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (trees.getHeight(order[middle]) <= height) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sorts a range of entries by height with a merge sort that skips merging halves already in order,
+     * so input that is nearly sorted is handled in close to linear time.
+     */
+    private void sort(int[] entries, int[] buffer, int from, int to) {
+        if (to - from <= INSERTION_SORT_SIZE) {
+            insertionSort(entries, from, to);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(entries, buffer, from, middle);
+        sort(entries, buffer, middle, to);
+        merge(entries, buffer, from, middle, to);
+    }
+
+    private void insertionSort(int[] entries, int from, int to) {
+        for (int next = from + 1; next < to; next++) {
+            int position = entries[next];
+            double height = trees.getHeight(position);
+            int slot = next;
+            while (slot > from && trees.getHeight(entries[slot - 1]) > height) {
+                entries[slot] = entries[slot - 1];
+                slot--;
+            }
+            entries[slot] = position;
+        }
+    }
+
+    /**
+     * Merges two sorted, adjacent ranges of entries.
+     */
+    private void merge(int[] entries, int[] buffer, int from, int middle, int to) {
+        if (from == middle || middle == to
+                || trees.getHeight(entries[middle - 1]) <= trees.getHeight(entries[middle])) {
+            return;
+        }
+        System.arraycopy(entries, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int slot = from; slot < to; slot++) {
+            if (right >= to || (left < middle && trees.getHeight(buffer[left]) <= trees.getHeight(buffer[right]))) {
+                entries[slot] = buffer[left++];
+            } else {
+                entries[slot] = buffer[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package forestry;
+
+import java.util.Arrays;
+
+/**
+ * The HeightSketch class estimates height percentiles from a fixed number of logarithmic buckets.
+ * A height's bucket is read straight from the bits of the double: its exponent and the top bits of its mantissa.
+ * Each bucket therefore covers heights within 1/64 of each other, and any percentile it reports is within 1% of
+ * the true height at that rank, without computing a logarithm per height. Heights can be added and removed one
+ * at a time, and two sketches are merged by adding their bucket counts, so sketches built on separate threads
+ * combine without looking at the trees again. Only the range of buckets in use is cleared, merged or searched.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class HeightSketch {
+    /**
+     * The largest relative error of a reported percentile.
+     */
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final int MANTISSA_BITS = 52;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SHIFT = MANTISSA_BITS - SUB_BUCKET_BITS;
+    private static final int EXPONENT_BIAS = 1023;
+    private static final int MIN_EXPONENT = -10;
+    private static final int MAX_EXPONENT = 63;
+    private static final int FIRST_KEY = (MIN_EXPONENT + EXPONENT_BIAS) << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - MIN_EXPONENT + 1) << SUB_BUCKET_BITS;
+
+    private final long[] counts;
+    private long zeroCount;
+    private long total;
+    private int lowest;
+    private int highest;
+
+    /**
+     * Constructs an empty sketch.
+     */
+    public HeightSketch() {
+        counts = new long[BUCKET_COUNT];
+        zeroCount = 0;
+        total = 0;
+        lowest = BUCKET_COUNT;
+        highest = -1;
+    }
+
+    /**
+     * Adds a height to the sketch.
+     *
+     * @param height the height to add
+     */
+    public void add(double height) {
+        if (height > 0) {
+            int bucket = bucket(height);
+            counts[bucket]++;
+            lowest = Math.min(lowest, bucket);
+            highest = Math.max(highest, bucket);
+        } else {
+            zeroCount++;
+        }
+        total++;
+    }
+
+    /**
+     * Removes a height that was added before.
+     *
+     * @param height the height to remove
+     */
+    public void remove(double height) {
+        if (height > 0) {
+            counts[bucket(height)]--;
+        } else {
+            zeroCount--;
+        }
+        total--;
+    }
+
+    /**
+     * Adds every height in another sketch to this one.
+     *
+     * @param other the sketch to merge in
+     */
+    public void merge(HeightSketch other) {
+        for (int bucket = other.lowest; bucket <= other.highest; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        lowest = Math.min(lowest, other.lowest);
+        highest = Math.max(highest, other.highest);
+        zeroCount += other.zeroCount;
+        total += other.total;
+    }
+
+    /**
+     * Removes every height from the sketch.
+     */
+    public void clear() {
+        if (lowest <= highest) {
+            Arrays.fill(counts, lowest, highest + 1, 0);
+        }
+        zeroCount = 0;
+        total = 0;
+        lowest = BUCKET_COUNT;
+        highest = -1;
+    }
+
+    /**
+     * Gets the number of heights in the sketch.
+     *
+     * @return the number of heights
+     */
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * Estimates the height at a percentile.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the estimated height, or 0 if the sketch is empty
+     */
+    public double getPercentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(Math.max(0, Math.min(100, percentile)) / 100 * (total - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int bucket = lowest; bucket <= highest; bucket++) {
+            seen += counts[bucket];
+            if (rank < seen) {
+                return representative(bucket);
+            }
+        }
+        return representative(highest);
+    }
+
+    /**
+     * Gets the value reported for a bucket: the point whose relative distance to both ends of the bucket is equal.
+     */
+    private static double representative(int bucket) {
+        double lower = Double.longBitsToDouble((long) (bucket + FIRST_KEY) << SHIFT);
+        double upper = Double.longBitsToDouble((long) (bucket + FIRST_KEY + 1) << SHIFT);
+        return 2 * lower * upper / (lower + upper);
+    }
+
+    private static int bucket(double height) {
+        int key = (int) (Double.doubleToRawLongBits(height) >>> SHIFT);
+        return Math.max(0, Math.min(BUCKET_COUNT - 1, key - FIRST_KEY));
+    }
+}
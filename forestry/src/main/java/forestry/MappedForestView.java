@@ -0,0 +1,147 @@
+package forestry;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * The MappedForestView class is a read-only view of a binary forest file that has been memory-mapped.
+ * Every read goes straight to the mapped columns of the file, so the trees are never copied onto the heap.
+ * Use ForestFile.map() to open a view, and toForest() to turn it into a Forest that can be changed.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class MappedForestView {
+    private final String name;
+    private final int size;
+    private final DoubleBuffer heights;
+    private final DoubleBuffer growthRates;
+    private final IntBuffer yearPlanting;
+    private final ByteBuffer species;
+    private final Tree.TreeSpecies[] speciesTable;
+
+    /**
+     * Constructs a view over the mapped columns of a forest file.
+     *
+     * @param name the name of the forest
+     * @param size the number of trees in the file
+     * @param heights the mapped height column
+     * @param growthRates the mapped growth rate column
+     * @param yearPlanting the mapped planting year column
+     * @param species the mapped species column
+     * @param speciesTable the species for each code used in the file
+     */
+    MappedForestView(String name, int size, DoubleBuffer heights, DoubleBuffer growthRates,
+                     IntBuffer yearPlanting, ByteBuffer species, Tree.TreeSpecies[] speciesTable) {
+        this.name = name;
+        this.size = size;
+        this.heights = heights;
+        this.growthRates = growthRates;
+        this.yearPlanting = yearPlanting;
+        this.species = species;
+        this.speciesTable = speciesTable;
+    }
+
+    /**
+     * Gets the name of the forest.
+     *
+     * @return the name of the forest
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of trees in the forest.
+     *
+     * @return the number of trees
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the height of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return the height of the tree
+     */
+    public double getHeight(int index) {
+        return heights.get(index);
+    }
+
+    /**
+     * Gets the growth rate of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return the growth rate of the tree
+     */
+    public double getGrowthRate(int index) {
+        return growthRates.get(index);
+    }
+
+    /**
+     * Gets the planting year of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return the year the tree was planted
+     */
+    public int getYearPlanting(int index) {
+        return yearPlanting.get(index);
+    }
+
+    /**
+     * Gets the species of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return the species of the tree, or null if it has none
+     */
+    public Tree.TreeSpecies getSpecies(int index) {
+        int code = species.get(index) & 0xFF;
+        return code < speciesTable.length ? speciesTable[code] : null;
+    }
+
+    /**
+     * Creates a Tree object holding a copy of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return a new Tree with the values stored at that position
+     */
+    public Tree getTree(int index) {
+        return new Tree(getSpecies(index), getYearPlanting(index), getHeight(index), getGrowthRate(index));
+    }
+
+    /**
+     * Calculates the average height of the trees straight from the mapped file.
+     *
+     * @return the average height of the trees, or 0 if there are none
+     */
+    public double calculateAverageHeight() {
+        if (size == 0) {
+            return 0;
+        }
+        double total = 0;
+        for (int from = 0; from < size; from += TreeColumns.BLOCK_SIZE) {
+            double blockTotal = 0;
+            for (int index = from, to = Math.min(from + TreeColumns.BLOCK_SIZE, size); index < to; index++) {
+                blockTotal += heights.get(index);
+            }
+            total += blockTotal;
+        }
+        return total / size;
+    }
+
+    /**
+     * Copies the trees of the view into a new Forest that can be changed.
+     *
+     * @return a new forest holding the same trees as the file
+     */
+    public Forest toForest() {
+        TreeColumns columns = new TreeColumns(size);
+        for (int index = 0; index < size; index++) {
+            columns.add(getSpecies(index), getYearPlanting(index), getHeight(index), getGrowthRate(index));
+        }
+        return new Forest(name, columns);
+    }
+}
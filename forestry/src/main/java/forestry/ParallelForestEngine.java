@@ -0,0 +1,319 @@
+package forestry;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The ParallelForestEngine class runs the bulk operations of a forest on a ForkJoinPool.
+ * The trees are split into chunks of at least the sequential cutoff, and each chunk is handled on its own task.
+ * Every operation produces exactly the same result as the sequential code in TreeColumns.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ParallelForestEngine {
+    /**
+     * The default number of trees below which a chunk is no longer split.
+     */
+    public static final int DEFAULT_SEQUENTIAL_CUTOFF = 16 * TreeColumns.BLOCK_SIZE;
+
+    private final ForkJoinPool pool;
+    private final int sequentialCutoff;
+
+    /**
+     * Constructs an engine using every available processor and the default sequential cutoff.
+     */
+    public ParallelForestEngine() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_SEQUENTIAL_CUTOFF);
+    }
+
+    /**
+     * Constructs an engine with the specified parallelism level and sequential cutoff.
+     *
+     * @param parallelism the number of worker threads to use
+     * @param sequentialCutoff the number of trees below which a chunk is handled on a single thread
+     */
+    public ParallelForestEngine(int parallelism, int sequentialCutoff) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        if (sequentialCutoff < 1) {
+            throw new IllegalArgumentException("Sequential cutoff must be at least 1: " + sequentialCutoff);
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.sequentialCutoff = sequentialCutoff;
+    }
+
+    /**
+     * Gets the number of worker threads used by the engine.
+     *
+     * @return the parallelism level
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Gets the number of trees below which a chunk is handled on a single thread.
+     *
+     * @return the sequential cutoff
+     */
+    public int getSequentialCutoff() {
+        return sequentialCutoff;
+    }
+
+    /**
+     * Grows every tree in the columns by one year.
+     *
+     * @param columns the trees to grow
+     */
+    public void grow(TreeColumns columns) {
+        pool.invoke(new GrowTask(columns, 1, 0, columns.size()));
+    }
+
+    /**
+     * Grows every tree in the columns by several years at once, using the closed form of compound growth.
+     *
+     * @param columns the trees to grow
+     * @param years the number of years to grow
+     */
+    public void growYears(TreeColumns columns, int years) {
+        pool.invoke(new GrowTask(columns, years, 0, columns.size()));
+    }
+
+    /**
+     * Grows every tree in the columns and measures their statistics in the same pass.
+     * Each task measures a range of whole blocks into its own statistics, which are merged afterwards,
+     * and the block sums are added in order, so the result matches ForestStatistics.measure() exactly.
+     *
+     * @param columns the trees to grow and measure
+     * @param years the number of years to grow first, or 0 to only measure
+     * @return the statistics of the trees after growing
+     */
+    public ForestStatistics measure(TreeColumns columns, int years) {
+        int blocks = TreeColumns.blockCount(columns.size());
+        double[] blockSums = new double[blocks * ForestStatistics.SLOTS];
+        ForestStatistics statistics = pool.invoke(new MeasureTask(columns, years, blockSums, 0, blocks));
+        statistics.addBlockSums(blockSums, blocks);
+        return statistics;
+    }
+
+    /**
+     * Creates columns holding the given number of random trees, filling the blocks in parallel.
+     * The result is the same as TreeColumns.plant() with the same seed.
+     *
+     * @param count the number of trees to make
+     * @param seed the seed of the random trees
+     * @return the new trees
+     */
+    public TreeColumns plant(int count, long seed) {
+        TreeColumns planted = TreeColumns.sized(count);
+        SplittableRandom[] randoms = TreeColumns.blockRandoms(count, seed);
+        pool.invoke(new PlantTask(planted, randoms, 0, randoms.length));
+        return planted;
+    }
+
+    /**
+     * Adds up the heights of every tree in the columns.
+     * Each block is summed on its own, and the block totals are then added in order,
+     * so the result matches TreeColumns.sumHeights() exactly.
+     *
+     * @param columns the trees to add up
+     * @return the total height of all trees
+     */
+    public double sumHeights(TreeColumns columns) {
+        int size = columns.size();
+        double[] blockTotals = new double[(size + TreeColumns.BLOCK_SIZE - 1) / TreeColumns.BLOCK_SIZE];
+        pool.invoke(new SumTask(columns, blockTotals, 0, blockTotals.length));
+
+        double total = 0;
+        for (double blockTotal : blockTotals) {
+            total += blockTotal;
+        }
+        return total;
+    }
+
+    /**
+     * Finds every tree in the columns that is taller than the given height.
+     *
+     * @param columns the trees to check
+     * @param height the height a tree must exceed
+     * @return the positions of the tall trees, in increasing order
+     */
+    public int[] findTallerThan(TreeColumns columns, double height) {
+        return pool.invoke(new FindTask(columns, height, 0, columns.size()));
+    }
+
+    /**
+     * Runs a task on the engine's threads and waits for it to finish.
+     *
+     * @param task the task to run
+     */
+    void invoke(ForkJoinTask<?> task) {
+        pool.invoke(task);
+    }
+
+    /**
+     * Stops the worker threads of the engine.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Grows a range of trees, splitting it in half until it is below the sequential cutoff.
+     * A single year uses the yearly formula, so it matches TreeColumns.grow() exactly.
+     */
+    private class GrowTask extends RecursiveAction {
+        private final TreeColumns columns;
+        private final int years;
+        private final int from, to;
+
+        GrowTask(TreeColumns columns, int years, int from, int to) {
+            this.columns = columns;
+            this.years = years;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= sequentialCutoff) {
+                if (years == 1) {
+                    columns.grow(from, to);
+                } else {
+                    columns.growYears(from, to, years);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GrowTask(columns, years, from, middle), new GrowTask(columns, years, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Sums a range of blocks into their slots of the block total array.
+     */
+    private class SumTask extends RecursiveAction {
+        private final TreeColumns columns;
+        private final double[] blockTotals;
+        private final int fromBlock, toBlock;
+
+        SumTask(TreeColumns columns, double[] blockTotals, int fromBlock, int toBlock) {
+            this.columns = columns;
+            this.blockTotals = blockTotals;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) (toBlock - fromBlock) * TreeColumns.BLOCK_SIZE <= sequentialCutoff || toBlock - fromBlock == 1) {
+                for (int block = fromBlock; block < toBlock; block++) {
+                    int from = block * TreeColumns.BLOCK_SIZE;
+                    blockTotals[block] = columns.sumHeights(from, Math.min(from + TreeColumns.BLOCK_SIZE, columns.size()));
+                }
+            } else {
+                int middle = (fromBlock + toBlock) >>> 1;
+                invokeAll(new SumTask(columns, blockTotals, fromBlock, middle),
+                        new SumTask(columns, blockTotals, middle, toBlock));
+            }
+        }
+    }
+
+    /**
+     * Grows and measures a range of blocks, merging the statistics of both halves.
+     */
+    private class MeasureTask extends RecursiveTask<ForestStatistics> {
+        private final TreeColumns columns;
+        private final int years;
+        private final double[] blockSums;
+        private final int fromBlock, toBlock;
+
+        MeasureTask(TreeColumns columns, int years, double[] blockSums, int fromBlock, int toBlock) {
+            this.columns = columns;
+            this.years = years;
+            this.blockSums = blockSums;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected ForestStatistics compute() {
+            if ((long) (toBlock - fromBlock) * TreeColumns.BLOCK_SIZE <= sequentialCutoff || toBlock - fromBlock == 1) {
+                ForestStatistics statistics = new ForestStatistics();
+                statistics.measureBlocks(columns, years, fromBlock, toBlock, blockSums);
+                return statistics;
+            }
+            int middle = (fromBlock + toBlock) >>> 1;
+            MeasureTask right = new MeasureTask(columns, years, blockSums, middle, toBlock);
+            right.fork();
+            ForestStatistics statistics = new MeasureTask(columns, years, blockSums, fromBlock, middle).compute();
+            statistics.mergeCounts(right.join());
+            return statistics;
+        }
+    }
+
+    /**
+     * Fills a range of blocks with random trees.
+     */
+    private class PlantTask extends RecursiveAction {
+        private final TreeColumns columns;
+        private final SplittableRandom[] randoms;
+        private final int fromBlock, toBlock;
+
+        PlantTask(TreeColumns columns, SplittableRandom[] randoms, int fromBlock, int toBlock) {
+            this.columns = columns;
+            this.randoms = randoms;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) (toBlock - fromBlock) * TreeColumns.BLOCK_SIZE <= sequentialCutoff || toBlock - fromBlock == 1) {
+                columns.plantBlocks(randoms, fromBlock, toBlock);
+            } else {
+                int middle = (fromBlock + toBlock) >>> 1;
+                invokeAll(new PlantTask(columns, randoms, fromBlock, middle),
+                        new PlantTask(columns, randoms, middle, toBlock));
+            }
+        }
+    }
+
+    /**
+     * Finds the tall trees in a range and joins the results of both halves in order.
+     */
+    private class FindTask extends RecursiveTask<int[]> {
+        private final TreeColumns columns;
+        private final double height;
+        private final int from, to;
+
+        FindTask(TreeColumns columns, double height, int from, int to) {
+            this.columns = columns;
+            this.height = height;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= sequentialCutoff) {
+                return columns.findTallerThan(height, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            FindTask right = new FindTask(columns, height, middle, to);
+            right.fork();
+            int[] leftFound = new FindTask(columns, height, from, middle).compute();
+            int[] rightFound = right.join();
+
+            int[] found = new int[leftFound.length + rightFound.length];
+            System.arraycopy(leftFound, 0, found, 0, leftFound.length);
+            System.arraycopy(rightFound, 0, found, leftFound.length, rightFound.length);
+            return found;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package forestry;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The ReportWriter class writes plain ASCII text through a byte buffer, formatting numbers by hand.
+ * Text and numbers are copied straight into the buffer, which is written to the output only when it fills,
+ * so printing a large report costs a few bulk writes rather than one formatted write per line.
+ * A writer can be reused for any number of reports; flush() makes everything written so far visible.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class ReportWriter implements Flushable, Closeable {
+    /**
+     * The size in bytes of the output buffer.
+     */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    /**
+     * The largest value written with fixed decimals by hand; larger values fall back to String.format.
+     */
+    private static final double MAX_FIXED = 1e15;
+
+    /**
+     * How close in ulps a scaled value may come to halfway between two results before it is written with
+     * String.format, which covers the error of the value's binary form and of scaling it.
+     */
+    private static final double HALFWAY_ULPS = 4;
+
+    private final OutputStream output;
+    private final boolean closeOutput;
+    private final byte[] buffer;
+    private final byte[] digits;
+    private int position;
+    private long drained;
+
+    /**
+     * Constructs a writer that writes to the given stream.
+     *
+     * @param output the stream to write to
+     * @param closeOutput true if closing the writer should also close the stream
+     */
+    public ReportWriter(OutputStream output, boolean closeOutput) {
+        this.output = output;
+        this.closeOutput = closeOutput;
+        buffer = new byte[BUFFER_SIZE];
+        digits = new byte[20];
+        position = 0;
+        drained = 0;
+    }
+
+    /**
+     * Writes a string, which is expected to hold only ASCII characters.
+     *
+     * @param text the text to write
+     * @return this writer
+     * @throws IOException if the buffer cannot be written out
+     */
+    public ReportWriter append(String text) throws IOException {
+        int length = text.length();
+        for (int start = 0; start < length; ) {
+            ensureSpace(1);
+            int count = Math.min(length - start, buffer.length - position);
+            for (int index = 0; index < count; index++) {
+                buffer[position++] = (byte) text.charAt(start + index);
+            }
+            start += count;
+        }
+        return this;
+    }
+
+    /**
+     * Writes a single ASCII character.
+     *
+     * @param c the character to write
+     * @return this writer
+     * @throws IOException if the buffer cannot be written out
+     */
+    public ReportWriter append(char c) throws IOException {
+        ensureSpace(1);
+        buffer[position++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Writes a string padded with spaces on the right to at least the given width, like %-Ns.
+     *
+     * @param text the text to write
+     * @param width the smallest number of characters to write
+     * @return this writer
+     * @throws IOException if the buffer cannot be written out
+     */
+    public ReportWriter appendLeft(String text, int width) throws IOException {
+        append(text);
+        return pad(width - text.length());
+    }
+
+    /**
+     * Writes a whole number padded with spaces on the left to at least the given width, like %Nd.
+     *
+     * @param value the number to write
+     * @param width the smallest number of characters to write
+     * @return this writer
+     * @throws IOException if the buffer cannot be written out
+     */
+    public ReportWriter appendRight(long value, int width) throws IOException {
+        int length = toDigits(value);
+        pad(width - length - (value < 0 ? 1 : 0));
+        return writeNumber(value < 0, length);
+    }
+
+    /**
+     * Writes a whole number padded with spaces on the right to at least the given width, like %-Nd.
+     *
+     * @param value the number to write
+     * @param width the smallest number of characters to write
+     * @return this writer
+     * @throws IOException if the buffer cannot be written out
+     */
+    public ReportWriter appendLeft(long value, int width) throws IOException {
+        int length = toDigits(value);
+        writeNumber(value < 0, length);
+        return pad(width - length - (value < 0 ? 1 : 0));
+    }
+
+    /**
+     * Writes a number rounded to a fixed number of decimals, padded on the left to at least the given width,
+     * like %N.Df. Values too large to round exactly with a long are written with String.format instead, and so are
+     * values that fall within a few ulps of halfway between two results: %f rounds the shortest decimal form of the
+     * value half up, which can differ from rounding the scaled binary value there, as with 1.005 to two decimals.
+     *
+     * @param value the number to write
+     * @param decimals the number of digits after the decimal point, from 0 to 6
+     * @param width the smallest number of characters to write
+     * @return this writer
+     * @throws IOException if the buffer cannot be written out
+     */
+    public ReportWriter appendFixed(double value, int decimals, int width) throws IOException {
+        double exact = Math.abs(value) * POWERS_OF_TEN[decimals];
+        if (!(Math.abs(value) < MAX_FIXED)
+                || Math.abs(exact - Math.floor(exact) - 0.5) <= HALFWAY_ULPS * Math.ulp(exact)) {
+            String text = String.format("%" + (width > 0 ? width : "") + "." + decimals + "f", value);
+            return append(text);
+        }
+        long scaled = Math.round(exact);
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        int length = toDigits(scaled);
+        while (length <= decimals) {
+            digits[length++] = '0';
+        }
+        int printed = length + (decimals > 0 ? 1 : 0) + (negative ? 1 : 0);
+        pad(width - printed);
+
+        ensureSpace(printed);
+        if (negative) {
+            buffer[position++] = '-';
+        }
+        for (int index = length - 1; index >= 0; index--) {
+            buffer[position++] = digits[index];
+            if (index == decimals && decimals > 0) {
+                buffer[position++] = '.';
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Ends the current line with the platform line separator.
+     *
+     * @return this writer
+     * @throws IOException if the buffer cannot be written out
+     */
+    public ReportWriter newLine() throws IOException {
+        ensureSpace(LINE_SEPARATOR.length);
+        for (byte b : LINE_SEPARATOR) {
+            buffer[position++] = b;
+        }
+        return this;
+    }
+
+    /**
+     * Gets the number of bytes written so far, including those still in the buffer.
+     *
+     * @return the number of bytes written
+     */
+    public long getBytesWritten() {
+        return drained + position;
+    }
+
+    /**
+     * Writes everything in the buffer to the output and flushes the output.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        output.flush();
+    }
+
+    /**
+     * Flushes the writer, and closes the output if the writer was asked to.
+     *
+     * @throws IOException if the output cannot be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (closeOutput) {
+                output.close();
+            }
+        }
+    }
+
+    private ReportWriter pad(int count) throws IOException {
+        for (int index = 0; index < count; index++) {
+            append(' ');
+        }
+        return this;
+    }
+
+    /**
+     * Puts the digits of the magnitude of a number into the digit buffer, least significant first.
+     *
+     * @return the number of digits
+     */
+    private int toDigits(long value) {
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        return length;
+    }
+
+    private ReportWriter writeNumber(boolean negative, int length) throws IOException {
+        ensureSpace(length + 1);
+        if (negative) {
+            buffer[position++] = '-';
+        }
+        for (int index = length - 1; index >= 0; index--) {
+            buffer[position++] = digits[index];
+        }
+        return this;
+    }
+
+    private void ensureSpace(int count) throws IOException {
+        if (buffer.length - position < count) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            output.write(buffer, 0, position);
+            drained += position;
+            position = 0;
+        }
+    }
+}
@@ -1,5 +1,9 @@
+package forestry;
+
 
 import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * The Tree class represents a tree with attributes such as species, year of planting, height, and growth rate.
@@ -10,6 +14,7 @@ import java.io.Serializable;
  * @see Tree
  */
 public class Tree implements Serializable {
+    private static final long serialVersionUID = 0xca98482ee08e0b63L;
     private static final int MIN_YEAR = 2000;
     private static final int MAX_YEAR = 2024;
     private static final int MIN_HEIGHT = 10;
@@ -22,6 +27,8 @@ public class Tree implements Serializable {
      */
     enum TreeSpecies{UNKNOWN, MAPLE, BIRCH, FIR};
 
+    private static final TreeSpecies[] SPECIES = TreeSpecies.values();
+
     private TreeSpecies species;
     private int yearPlanting;
     private double height, growthRate;
@@ -94,25 +101,82 @@ public class Tree implements Serializable {
      * Simulates yearly growth of the tree by updating its height based on the growth rate.
      */
     public void grow() {
-        // Calculate the new height based on the growth rate
-        double newHeight;
-        newHeight = height + (height * growthRate)/100;
-        height = newHeight;
-        // Return the new height
+        height = grownHeight(height, growthRate);
+    }
+
+    /**
+     * Calculates the height a tree reaches after one year of growth.
+     *
+     * @param height the current height of the tree
+     * @param growthRate the growth rate of the tree, as a percentage
+     * @return the height after one year
+     */
+    static double grownHeight(double height, double growthRate) {
+        return height + (height * growthRate)/100;
     }
 
     /**
      * Generates a random Tree object with random values for species, year of planting, height, and growth rate.
+     * The values come from the calling thread's own generator, so threads making trees do not contend.
      *
      * @return a randomly generated Tree object
      */
     public static Tree makeRandomTree(){
-        Tree newTree;
-        newTree = new Tree(TreeSpecies.values()[1 + (int)(Math.random() * (TreeSpecies.values().length -1))],
-                MIN_YEAR + (int)(Math.random() * (MAX_YEAR - MIN_YEAR)),
-                MIN_HEIGHT + (Math.random() * (MAX_HEIGHT - MIN_HEIGHT)),
-                MIN_GROWTH_RATE + (Math.random() * (MAX_GROWTH_RATE - MIN_GROWTH_RATE)));
-        return(newTree);
+        return makeRandomTree(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a random Tree object from the specified generator.
+     * A seeded generator makes the same sequence of trees every time.
+     *
+     * @param random the generator to draw the tree's values from
+     * @return a randomly generated Tree object
+     */
+    public static Tree makeRandomTree(RandomGenerator random){
+        TreeSpecies species = randomSpecies(random);
+        int yearPlanting = randomYearPlanting(random);
+        double height = randomHeight(random);
+        return new Tree(species, yearPlanting, height, randomGrowthRate(random));
+    }
+
+    /**
+     * Draws a random species, never UNKNOWN.
+     *
+     * @param random the generator to draw from
+     * @return the species
+     */
+    static TreeSpecies randomSpecies(RandomGenerator random) {
+        return SPECIES[1 + (int) (random.nextDouble() * (SPECIES.length - 1))];
+    }
+
+    /**
+     * Draws a random planting year.
+     *
+     * @param random the generator to draw from
+     * @return the planting year
+     */
+    static int randomYearPlanting(RandomGenerator random) {
+        return MIN_YEAR + (int) (random.nextDouble() * (MAX_YEAR - MIN_YEAR));
+    }
+
+    /**
+     * Draws a random height for a new tree.
+     *
+     * @param random the generator to draw from
+     * @return the height
+     */
+    static double randomHeight(RandomGenerator random) {
+        return MIN_HEIGHT + (random.nextDouble() * (MAX_HEIGHT - MIN_HEIGHT));
+    }
+
+    /**
+     * Draws a random growth rate.
+     *
+     * @param random the generator to draw from
+     * @return the growth rate, as a percentage
+     */
+    static double randomGrowthRate(RandomGenerator random) {
+        return MIN_GROWTH_RATE + (random.nextDouble() * (MAX_GROWTH_RATE - MIN_GROWTH_RATE));
     }
 
     /**
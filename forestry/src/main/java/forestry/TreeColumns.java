@@ -0,0 +1,584 @@
+package forestry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The TreeColumns class stores the trees of a forest in struct-of-arrays form.
+ * Each attribute of a tree lives in its own primitive array, so a tree costs a couple dozen bytes
+ * instead of a full object, and loops over a single attribute (such as growth) walk memory in order.
+ * Tree objects are only created on demand as copies of a row.
+ *
+ * Every tree has a number that stays the same while other trees are removed, so a number taken from one
+ * report still names the same tree after trees before it are cut. New trees get the next unused number.
+ * Until the first tree is removed every number equals the position of its tree, and no ID column is kept;
+ * the first removal creates the column, which then stays in increasing order.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class TreeColumns {
+    /**
+     * The species code used for a tree without a species.
+     */
+    static final byte NO_SPECIES = -1;
+
+    /**
+     * The number of bytes a single tree occupies across all columns.
+     */
+    public static final int BYTES_PER_TREE = Byte.BYTES + Integer.BYTES + Double.BYTES + Double.BYTES;
+
+    /**
+     * The number of trees summed together before a partial total is added to the running total.
+     * Sums are always built from these fixed blocks, so the sequential and parallel paths
+     * add the same numbers in the same order and get identical results.
+     */
+    public static final int BLOCK_SIZE = 4096;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final Tree.TreeSpecies[] SPECIES = Tree.TreeSpecies.values();
+
+    private byte[] species;
+    private int[] yearPlanting;
+    private double[] heights;
+    private double[] growthRates;
+    private int[] ids;
+    private int nextId;
+    private int size;
+
+    /**
+     * Constructs an empty set of columns with a default capacity.
+     */
+    public TreeColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty set of columns able to hold the given number of trees without growing.
+     *
+     * @param capacity the initial number of trees the columns can hold
+     */
+    public TreeColumns(int capacity) {
+        capacity = Math.max(capacity, 1);
+        species = new byte[capacity];
+        yearPlanting = new int[capacity];
+        heights = new double[capacity];
+        growthRates = new double[capacity];
+        size = 0;
+    }
+
+    /**
+     * Constructs columns that use the given arrays directly, without copying them.
+     * Every array must hold at least size entries.
+     *
+     * @param species the species codes of the trees
+     * @param yearPlanting the planting years of the trees
+     * @param heights the heights of the trees
+     * @param growthRates the growth rates of the trees
+     * @param size the number of trees in the arrays
+     */
+    TreeColumns(byte[] species, int[] yearPlanting, double[] heights, double[] growthRates, int size) {
+        this.species = species;
+        this.yearPlanting = yearPlanting;
+        this.heights = heights;
+        this.growthRates = growthRates;
+        this.size = size;
+    }
+
+    /**
+     * Gets the number of trees stored in the columns.
+     *
+     * @return the number of trees
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Makes sure the columns can hold at least the given number of trees.
+     *
+     * @param capacity the number of trees the columns must be able to hold
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > heights.length) {
+            int newCapacity = Math.max(capacity, heights.length + (heights.length >> 1));
+            species = Arrays.copyOf(species, newCapacity);
+            yearPlanting = Arrays.copyOf(yearPlanting, newCapacity);
+            heights = Arrays.copyOf(heights, newCapacity);
+            growthRates = Arrays.copyOf(growthRates, newCapacity);
+            if (ids != null) {
+                ids = Arrays.copyOf(ids, newCapacity);
+            }
+        }
+    }
+
+    /**
+     * Appends a tree to the end of the columns.
+     *
+     * @param treeSpecies the species of the tree
+     * @param year the year the tree was planted
+     * @param height the height of the tree
+     * @param growthRate the growth rate of the tree
+     */
+    public void add(Tree.TreeSpecies treeSpecies, int year, double height, double growthRate) {
+        ensureCapacity(size + 1);
+        species[size] = encodeSpecies(treeSpecies);
+        yearPlanting[size] = year;
+        heights[size] = height;
+        growthRates[size] = growthRate;
+        if (ids != null) {
+            ids[size] = nextId++;
+        }
+        size++;
+    }
+
+    /**
+     * Appends a copy of the given tree to the end of the columns.
+     *
+     * @param tree the tree to copy into the columns
+     */
+    public void add(Tree tree) {
+        add(tree.getSpecies(), tree.getYearPlanting(), tree.getHeight(), tree.getGrowthRate());
+    }
+
+    /**
+     * Appends every tree in another set of columns to the end of these columns.
+     *
+     * @param other the columns to copy trees from
+     */
+    public void addAll(TreeColumns other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.species, 0, species, size, other.size);
+        System.arraycopy(other.yearPlanting, 0, yearPlanting, size, other.size);
+        System.arraycopy(other.heights, 0, heights, size, other.size);
+        System.arraycopy(other.growthRates, 0, growthRates, size, other.size);
+        if (ids != null) {
+            for (int index = size; index < size + other.size; index++) {
+                ids[index] = nextId++;
+            }
+        }
+        size += other.size;
+    }
+
+    /**
+     * Removes the tree at the given position, shifting later trees down by one.
+     *
+     * @param index the position of the tree to remove
+     */
+    public void remove(int index) {
+        trackIds();
+        int tail = size - index - 1;
+        if (tail > 0) {
+            System.arraycopy(ids, index + 1, ids, index, tail);
+            System.arraycopy(species, index + 1, species, index, tail);
+            System.arraycopy(yearPlanting, index + 1, yearPlanting, index, tail);
+            System.arraycopy(heights, index + 1, heights, index, tail);
+            System.arraycopy(growthRates, index + 1, growthRates, index, tail);
+        }
+        size--;
+    }
+
+    /**
+     * Removes several trees in a single pass, moving the remaining trees down to fill the gaps.
+     *
+     * @param positions the positions of the trees to remove, in increasing order
+     * @param count the number of positions to use from the array
+     */
+    public void removeAll(int[] positions, int count) {
+        if (count == 0) {
+            return;
+        }
+        trackIds();
+        int target = positions[0];
+        for (int removed = 0; removed < count; removed++) {
+            int keepFrom = positions[removed] + 1;
+            int keepTo = removed + 1 < count ? positions[removed + 1] : size;
+            int length = keepTo - keepFrom;
+            if (length > 0) {
+                System.arraycopy(ids, keepFrom, ids, target, length);
+                System.arraycopy(species, keepFrom, species, target, length);
+                System.arraycopy(yearPlanting, keepFrom, yearPlanting, target, length);
+                System.arraycopy(heights, keepFrom, heights, target, length);
+                System.arraycopy(growthRates, keepFrom, growthRates, target, length);
+                target += length;
+            }
+        }
+        size = target;
+    }
+
+    /**
+     * Creates the ID column the first time a tree is removed, numbering every tree by its position.
+     */
+    private void trackIds() {
+        if (ids == null) {
+            ids = new int[heights.length];
+            for (int index = 0; index < size; index++) {
+                ids[index] = index;
+            }
+            nextId = size;
+        }
+    }
+
+    /**
+     * Gets the ID of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return the number of the tree, which does not change when other trees are removed
+     */
+    public int getId(int index) {
+        return ids == null ? index : ids[index];
+    }
+
+    /**
+     * Finds the position of the tree with the given ID. IDs are kept in increasing order,
+     * so this is a binary search once trees have been removed and a bounds check before.
+     *
+     * @param id the number of the tree
+     * @return the position of the tree, or -1 if no tree has that ID
+     */
+    public int indexOfId(int id) {
+        if (ids == null) {
+            return id >= 0 && id < size ? id : -1;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Finds the position of the first tree whose ID is at least the given ID, such as the first tree
+     * of a page that starts at a tree number that has since been cut.
+     *
+     * @param id the number of the tree
+     * @return the position of that tree, or the number of trees if every tree has a smaller ID
+     */
+    public int indexOfIdFrom(int id) {
+        if (ids == null) {
+            return Math.max(0, Math.min(id, size));
+        }
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Gets the species of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return the species of the tree, or null if it has none
+     */
+    public Tree.TreeSpecies getSpecies(int index) {
+        return decodeSpecies(species[index]);
+    }
+
+    /**
+     * Gets the planting year of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return the year the tree was planted
+     */
+    public int getYearPlanting(int index) {
+        return yearPlanting[index];
+    }
+
+    /**
+     * Gets the height of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return the height of the tree
+     */
+    public double getHeight(int index) {
+        return heights[index];
+    }
+
+    /**
+     * Gets the growth rate of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return the growth rate of the tree
+     */
+    public double getGrowthRate(int index) {
+        return growthRates[index];
+    }
+
+    /**
+     * Grows every tree in the given range by one year.
+     *
+     * @param from the first position to grow, inclusive
+     * @param to the last position to grow, exclusive
+     */
+    public void grow(int from, int to) {
+        for (int index = from; index < to; index++) {
+            heights[index] = Tree.grownHeight(heights[index], growthRates[index]);
+        }
+    }
+
+    /**
+     * Grows every tree in the given range by several years at once.
+     * Yearly growth is compound growth, so the height after the given number of years
+     * is the height times (1 + rate / 100) raised to that number of years.
+     *
+     * @param from the first position to grow, inclusive
+     * @param to the last position to grow, exclusive
+     * @param years the number of years to grow
+     */
+    public void growYears(int from, int to, int years) {
+        for (int index = from; index < to; index++) {
+            heights[index] *= Math.pow(1 + growthRates[index] / 100, years);
+        }
+    }
+
+    /**
+     * Finds the trees in the given range that would grow past a height within the given number of years.
+     * Trees already taller than the height are not included, since they crossed it before the span began.
+     *
+     * @param height the height the trees must grow past
+     * @param years the number of years to look ahead
+     * @param from the first position to check, inclusive
+     * @param to the last position to check, exclusive
+     * @return the trees that grow past the height, by tree number, with the year each one first passes it
+     */
+    public GrowthCrossings findCrossings(double height, int years, int from, int to) {
+        GrowthCrossings crossings = new GrowthCrossings(height);
+        for (int index = from; index < to; index++) {
+            double start = heights[index];
+            double factor = 1 + growthRates[index] / 100;
+            if (start <= 0 || start > height || factor <= 1) {
+                continue;
+            }
+            // Solve start * factor^year > height for the smallest year, then correct for rounding
+            int year = (int) Math.min(Math.floor(Math.log(height / start) / Math.log(factor)) + 1, years + 1);
+            while (year > 1 && start * Math.pow(factor, year - 1) > height) {
+                year--;
+            }
+            while (year <= years && start * Math.pow(factor, year) <= height) {
+                year++;
+            }
+            if (year <= years) {
+                crossings.add(getId(index), year);
+            }
+        }
+        return crossings;
+    }
+
+    /**
+     * Adds up the heights of the trees in the given range.
+     *
+     * @param from the first position to include, inclusive
+     * @param to the last position to include, exclusive
+     * @return the total height of the trees in the range
+     */
+    public double sumHeights(int from, int to) {
+        double total = 0;
+        for (int index = from; index < to; index++) {
+            total += heights[index];
+        }
+        return total;
+    }
+
+    /**
+     * Adds up the heights of every tree, block by block.
+     *
+     * @return the total height of all trees
+     */
+    public double sumHeights() {
+        double total = 0;
+        for (int from = 0; from < size; from += BLOCK_SIZE) {
+            total += sumHeights(from, Math.min(from + BLOCK_SIZE, size));
+        }
+        return total;
+    }
+
+    /**
+     * Finds the trees in the given range that are taller than the given height.
+     *
+     * @param height the height a tree must exceed
+     * @param from the first position to check, inclusive
+     * @param to the last position to check, exclusive
+     * @return the positions of the tall trees, in increasing order
+     */
+    public int[] findTallerThan(double height, int from, int to) {
+        int[] found = new int[Math.min(to - from, DEFAULT_CAPACITY)];
+        int count = 0;
+        for (int index = from; index < to; index++) {
+            if (heights[index] > height) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, found.length * 2);
+                }
+                found[count++] = index;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Gets the array backing the species column. Only the first size() entries are trees.
+     *
+     * @return the species codes
+     */
+    byte[] speciesColumn() {
+        return species;
+    }
+
+    /**
+     * Gets the array backing the planting year column. Only the first size() entries are trees.
+     *
+     * @return the planting years
+     */
+    int[] yearPlantingColumn() {
+        return yearPlanting;
+    }
+
+    /**
+     * Gets the array backing the height column. Only the first size() entries are trees.
+     *
+     * @return the heights
+     */
+    double[] heightColumn() {
+        return heights;
+    }
+
+    /**
+     * Gets the array backing the growth rate column. Only the first size() entries are trees.
+     *
+     * @return the growth rates
+     */
+    double[] growthRateColumn() {
+        return growthRates;
+    }
+
+    /**
+     * Creates a Tree object holding a copy of the tree at the given position.
+     *
+     * @param index the position of the tree
+     * @return a new Tree with the values stored at that position
+     */
+    public Tree toTree(int index) {
+        return new Tree(getSpecies(index), yearPlanting[index], heights[index], growthRates[index]);
+    }
+
+    /**
+     * Copies the trees into new columns sized to fit them exactly.
+     * Each column is copied with Arrays.copyOf, so a copy taken while another thread is changing the columns
+     * never throws; it may be inconsistent, and a caller racing a writer must check it was not changed meanwhile.
+     *
+     * @return new columns holding the same trees, with the same IDs
+     */
+    TreeColumns copy() {
+        int count = size;
+        int[] idColumn = ids;
+        TreeColumns copy = new TreeColumns(Arrays.copyOf(species, count), Arrays.copyOf(yearPlanting, count),
+                Arrays.copyOf(heights, count), Arrays.copyOf(growthRates, count), count);
+        if (idColumn != null) {
+            copy.ids = Arrays.copyOf(idColumn, count);
+            copy.nextId = nextId;
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a list of Tree objects holding copies of every tree in the columns.
+     *
+     * @return a new list of trees in column order
+     */
+    public ArrayList<Tree> toTrees() {
+        ArrayList<Tree> trees = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            trees.add(toTree(index));
+        }
+        return trees;
+    }
+
+    /**
+     * Creates columns holding the given number of random trees, drawn from a seed.
+     * The trees are made in blocks of BLOCK_SIZE, each drawn from its own generator split off the seed in order,
+     * so the same seed gives the same trees whether the blocks are filled on one thread or many.
+     *
+     * @param count the number of trees to make
+     * @param seed the seed of the random trees
+     * @return the new trees
+     */
+    public static TreeColumns plant(int count, long seed) {
+        TreeColumns planted = sized(count);
+        planted.plantBlocks(blockRandoms(count, seed), 0, blockCount(count));
+        return planted;
+    }
+
+    /**
+     * Creates columns of the given size whose trees are all zero, ready to be filled by plantBlocks.
+     *
+     * @param count the number of trees
+     * @return the new columns
+     */
+    static TreeColumns sized(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        return new TreeColumns(new byte[count], new int[count], new double[count], new double[count], count);
+    }
+
+    /**
+     * Gets the number of blocks of BLOCK_SIZE trees needed to hold a number of trees.
+     *
+     * @param count the number of trees
+     * @return the number of blocks
+     */
+    static int blockCount(int count) {
+        return (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * Splits one generator per block off a seed, in block order.
+     *
+     * @param count the number of trees to make
+     * @param seed the seed of the random trees
+     * @return a generator for each block
+     */
+    static SplittableRandom[] blockRandoms(int count, long seed) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[blockCount(count)];
+        for (int block = 0; block < randoms.length; block++) {
+            randoms[block] = root.split();
+        }
+        return randoms;
+    }
+
+    /**
+     * Fills a range of blocks with random trees, each block from its own generator.
+     * Values are drawn in the same order as Tree.makeRandomTree().
+     *
+     * @param randoms the generator of each block
+     * @param fromBlock the first block to fill, inclusive
+     * @param toBlock the last block to fill, exclusive
+     */
+    void plantBlocks(SplittableRandom[] randoms, int fromBlock, int toBlock) {
+        for (int block = fromBlock; block < toBlock; block++) {
+            SplittableRandom random = randoms[block];
+            for (int index = block * BLOCK_SIZE, to = Math.min(index + BLOCK_SIZE, size); index < to; index++) {
+                species[index] = (byte) Tree.randomSpecies(random).ordinal();
+                yearPlanting[index] = Tree.randomYearPlanting(random);
+                heights[index] = Tree.randomHeight(random);
+                growthRates[index] = Tree.randomGrowthRate(random);
+            }
+        }
+    }
+
+    /**
+     * Converts a species to the byte stored in the species column.
+     *
+     * @param treeSpecies the species to convert, may be null
+     * @return the byte code of the species
+     */
+    static byte encodeSpecies(Tree.TreeSpecies treeSpecies) {
+        return treeSpecies == null ? NO_SPECIES : (byte) treeSpecies.ordinal();
+    }
+
+    /**
+     * Converts a byte from the species column back to a species.
+     *
+     * @param code the byte code of the species
+     * @return the species, or null if the code is NO_SPECIES
+     */
+    static Tree.TreeSpecies decodeSpecies(byte code) {
+        return code == NO_SPECIES ? null : SPECIES[code];
+    }
+}
@@ -0,0 +1,116 @@
+package forestry;
+
+import java.util.Arrays;
+
+/**
+ * The TreeFilter class picks out trees by species, height and planting year, such as the trees to clear
+ * in a bulk cut. A new filter matches every tree; each setter narrows it, and a tree must pass every
+ * condition that is set. Heights and years are inclusive ranges.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+public class TreeFilter {
+    private boolean speciesFiltered;
+    private byte speciesCode;
+    private double minHeight;
+    private double maxHeight;
+    private int minYear;
+    private int maxYear;
+
+    /**
+     * Constructs a filter that matches every tree.
+     */
+    public TreeFilter() {
+        speciesFiltered = false;
+        minHeight = Double.NEGATIVE_INFINITY;
+        maxHeight = Double.POSITIVE_INFINITY;
+        minYear = Integer.MIN_VALUE;
+        maxYear = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Matches only trees of one species.
+     *
+     * @param species the species to match, or null to match trees without a species
+     */
+    public void setSpecies(Tree.TreeSpecies species) {
+        this.speciesFiltered = true;
+        this.speciesCode = TreeColumns.encodeSpecies(species);
+    }
+
+    /**
+     * Matches trees of any species again.
+     */
+    public void clearSpecies() {
+        this.speciesFiltered = false;
+    }
+
+    /**
+     * Matches only trees whose height lies within a range.
+     *
+     * @param minHeight the lowest height to match, inclusive
+     * @param maxHeight the highest height to match, inclusive
+     */
+    public void setHeightRange(double minHeight, double maxHeight) {
+        if (minHeight > maxHeight) {
+            throw new IllegalArgumentException("Minimum height " + minHeight + " is above maximum height " + maxHeight);
+        }
+        this.minHeight = minHeight;
+        this.maxHeight = maxHeight;
+    }
+
+    /**
+     * Matches only trees planted within a range of years.
+     *
+     * @param minYear the earliest planting year to match, inclusive
+     * @param maxYear the latest planting year to match, inclusive
+     */
+    public void setYearRange(int minYear, int maxYear) {
+        if (minYear > maxYear) {
+            throw new IllegalArgumentException("Earliest year " + minYear + " is after latest year " + maxYear);
+        }
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+    }
+
+    /**
+     * Checks whether a tree passes the filter.
+     *
+     * @param tree the tree to check
+     * @return true if the tree matches every condition of the filter
+     */
+    public boolean matches(Tree tree) {
+        return matches(TreeColumns.encodeSpecies(tree.getSpecies()), tree.getYearPlanting(), tree.getHeight());
+    }
+
+    private boolean matches(byte species, int year, double height) {
+        return (!speciesFiltered || species == speciesCode)
+                && height >= minHeight && height <= maxHeight
+                && year >= minYear && year <= maxYear;
+    }
+
+    /**
+     * Finds the trees in the columns that pass the filter, in one pass over the species, year and height columns.
+     *
+     * @param trees the columns to search
+     * @return the positions of the matching trees, in increasing order
+     */
+    int[] findMatches(TreeColumns trees) {
+        byte[] species = trees.speciesColumn();
+        int[] years = trees.yearPlantingColumn();
+        double[] heights = trees.heightColumn();
+        int size = trees.size();
+        int[] found = new int[Math.min(size, 16)];
+        int count = 0;
+        for (int index = 0; index < size; index++) {
+            if (matches(species[index], years[index], heights[index])) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, found.length * 2);
+                }
+                found[count++] = index;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+}
@@ -0,0 +1,69 @@
+package forestry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that readers of a concurrent forest never change it, however their reads overlap the changes.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+class ConcurrentForestTest {
+    private static final int CHANGES = 3000;
+
+    @Test
+    void readersNeverChangeTheForest() throws InterruptedException {
+        Forest forest = new Forest("Shared");
+        forest.plant(20000, 1);
+        ConcurrentForest shared = new ConcurrentForest(forest);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (!stop.get()) {
+                    ForestView view = shared.view();
+                    assertTrue(view.size() > 0);
+                    shared.getTree(0);
+                    shared.size();
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+
+        long expected = forest.size();
+        SplittableRandom random = new SplittableRandom(7);
+        int[] cut = new int[1];
+        for (int change = 0; change < CHANGES; change++) {
+            // A few cuts stay marked until the change ends, which is when readers could once see them
+            shared.update(target -> {
+                int[] treeNumbers = new int[4];
+                for (int index = 0; index < treeNumbers.length; index++) {
+                    treeNumbers[index] = target.getTreeNumber(random.nextInt(target.size()));
+                }
+                cut[0] = target.cutTrees(treeNumbers);
+                target.addTree();
+            });
+            expected += 1 - cut[0];
+            shared.plant(8, random.nextLong());
+            expected += 8;
+        }
+        stop.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(expected, shared.size());
+        assertEquals(expected, shared.view().size());
+        assertEquals(expected, shared.getStatistics().getCount());
+    }
+}
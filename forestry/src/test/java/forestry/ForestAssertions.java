@@ -0,0 +1,44 @@
+package forestry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Assertions shared by the forest tests.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+final class ForestAssertions {
+    private ForestAssertions() {
+    }
+
+    /**
+     * Checks that two sets of columns hold the same trees in the same order, comparing heights and growth rates
+     * bit for bit.
+     *
+     * @param expected the trees that should be there
+     * @param actual the trees that are there
+     */
+    static void assertSameTrees(TreeColumns expected, TreeColumns actual) {
+        assertEquals(expected.size(), actual.size(), "number of trees");
+        for (int index = 0; index < expected.size(); index++) {
+            String tree = "tree at position " + index;
+            assertEquals(expected.speciesColumn()[index], actual.speciesColumn()[index], tree + " species");
+            assertEquals(expected.yearPlantingColumn()[index], actual.yearPlantingColumn()[index], tree + " year");
+            assertEquals(Double.doubleToRawLongBits(expected.heightColumn()[index]),
+                    Double.doubleToRawLongBits(actual.heightColumn()[index]), tree + " height");
+            assertEquals(Double.doubleToRawLongBits(expected.growthRateColumn()[index]),
+                    Double.doubleToRawLongBits(actual.growthRateColumn()[index]), tree + " growth rate");
+        }
+    }
+
+    /**
+     * Checks that two forests hold the same trees in the same order.
+     *
+     * @param expected the forest with the trees that should be there
+     * @param actual the forest with the trees that are there
+     */
+    static void assertSameTrees(Forest expected, Forest actual) {
+        assertSameTrees(expected.getColumns(), actual.getColumns());
+    }
+}
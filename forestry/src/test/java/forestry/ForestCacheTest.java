@@ -0,0 +1,81 @@
+package forestry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static forestry.ForestAssertions.assertSameTrees;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that the forest cache answers repeated reads of an unchanged file and reads a changed file again.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+class ForestCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAChangedFileAgain() throws IOException {
+        ForestCache cache = new ForestCache(ForestCache.DEFAULT_BUDGET);
+        String fileName = directory.resolve("Cached.db").toString();
+        Forest first = plantedForest(100, 1);
+        writeSettled(fileName, first, 60_000);
+
+        assertSameTrees(first, cache.read(fileName));
+        assertSameTrees(first, cache.read(fileName));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        Forest second = plantedForest(150, 2);
+        writeSettled(fileName, second, 30_000);
+        assertSameTrees(second, cache.read(fileName));
+        assertEquals(1, cache.getStaleCount());
+    }
+
+    @Test
+    void doesNotCacheAFileJustWritten() throws IOException {
+        ForestCache cache = new ForestCache(ForestCache.DEFAULT_BUDGET);
+        String fileName = directory.resolve("Fresh.db").toString();
+        ForestFile.write(fileName, plantedForest(10, 3));
+
+        cache.read(fileName);
+        cache.read(fileName);
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void changingALoadedForestLeavesTheCacheUnchanged() throws IOException {
+        ForestCache cache = new ForestCache(ForestCache.DEFAULT_BUDGET);
+        String fileName = directory.resolve("Shared.db").toString();
+        Forest original = plantedForest(100, 4);
+        writeSettled(fileName, original, 60_000);
+
+        Forest loaded = cache.read(fileName);
+        loaded.simulateYearlyGrowth();
+        loaded.removeTree(0);
+
+        assertSameTrees(original, cache.read(fileName));
+    }
+
+    private static Forest plantedForest(int count, long seed) {
+        Forest forest = new Forest("Cached");
+        forest.plant(count, seed);
+        return forest;
+    }
+
+    /**
+     * Writes a forest and dates the file back, so the cache does not treat it as just written.
+     */
+    private static void writeSettled(String fileName, Forest forest, long ageMillis) throws IOException {
+        ForestFile.write(fileName, forest);
+        Files.setLastModifiedTime(Path.of(fileName), FileTime.fromMillis(System.currentTimeMillis() - ageMillis));
+    }
+}
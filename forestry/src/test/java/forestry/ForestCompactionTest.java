@@ -0,0 +1,105 @@
+package forestry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static forestry.ForestAssertions.assertSameTrees;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Tests that cutting trees by number marks them and removes them later in one pass, without changing
+ * what the forest shows in between, and that the journal records the cuts in an order that replays exactly.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+class ForestCompactionTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void treeNumbersStayTheSameAfterCuts() {
+        Forest forest = new Forest("Numbers");
+        forest.plant(100, 3);
+        Tree tenth = forest.getTree(10);
+
+        assertEquals(3, forest.cutTrees(new int[] {2, 5, 7}));
+        assertEquals(0, forest.cutTrees(new int[] {5, 100, -1}));
+        assertEquals(97, forest.size());
+        assertEquals(-1, forest.findTree(5));
+        assertEquals(7, forest.findTree(10));
+        assertEquals(10, forest.getTreeNumber(7));
+        assertEquals(tenth.toString(), forest.getTree(7).toString());
+    }
+
+    @Test
+    void crossingsNameTreesByNumber() {
+        Forest forest = new Forest("Crossing");
+        forest.addTree(new Tree(Tree.TreeSpecies.FIR, 2020, 10.0, 50.0));
+        forest.addTree(new Tree(Tree.TreeSpecies.FIR, 2020, 10.0, 10.0));
+        forest.addTree(new Tree(Tree.TreeSpecies.FIR, 2020, 10.0, 50.0));
+        forest.cutTrees(new int[] {0});
+
+        GrowthCrossings crossings = forest.simulateGrowth(1, 14.0);
+        assertEquals(1, crossings.size());
+        assertEquals(2, crossings.getTreeNumber(0));
+        assertEquals(1, crossings.getYear(0));
+    }
+
+    @Test
+    void markedTreesAreSkippedBeforeTheyAreRemoved() {
+        Forest marked = new Forest("Marked");
+        marked.plant(1000, 4);
+        Forest removed = new Forest("Removed");
+        removed.addTrees(marked.getColumns());
+        int[] cut = {0, 1, 17, 500, 999};
+
+        // Few enough cuts that they stay marked until something reads the columns
+        marked.cutTrees(cut);
+        for (int treeNumber : cut) {
+            removed.removeTree(removed.findTree(treeNumber));
+        }
+
+        assertEquals(removed.size(), marked.size());
+        for (int position = 0; position < removed.size(); position++) {
+            assertEquals(removed.getTree(position).toString(), marked.getTree(position).toString());
+        }
+        assertEquals(removed.calculateAverageHeight(), marked.calculateAverageHeight(), 1e-9);
+        assertSameTrees(removed, marked);
+    }
+
+    @Test
+    void cutsInterleavedWithOtherChangesReplayFromTheJournal() throws IOException {
+        String forestName = directory.resolve("Compacted").toString();
+        Forest forest = new Forest("Compacted");
+        forest.plant(2000, 5);
+        forest.startJournal(forestName);
+
+        forest.cutTrees(new int[] {1999, 3, 1000});
+        forest.addTree(new Tree(Tree.TreeSpecies.FIR, 2015, 9.0, 12.0));
+        forest.cutTrees(new int[] {4, 2000});
+        forest.simulateYearlyGrowth();
+        int[] many = new int[800];
+        for (int index = 0; index < many.length; index++) {
+            many[index] = index * 2 + 5;
+        }
+        // Enough cuts to pass the compaction ratio, so they are removed as they are made
+        forest.cutTrees(many);
+        TreeFilter filter = new TreeFilter();
+        filter.setSpecies(Tree.TreeSpecies.MAPLE);
+        forest.cutTrees(filter);
+        forest.cutTrees(new int[] {1501});
+        TreeColumns expected = new TreeColumns();
+        expected.addAll(forest.getColumns());
+        forest.stopJournal();
+
+        Forest loaded = Forest.load(forestName);
+        assertNotNull(loaded);
+        loaded.stopJournal();
+        assertSameTrees(expected, loaded.getColumns());
+    }
+}
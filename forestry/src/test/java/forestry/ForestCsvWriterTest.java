@@ -0,0 +1,61 @@
+package forestry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static forestry.ForestAssertions.assertSameTrees;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that forests written to CSV files read back into exactly the same trees,
+ * and that the files keep the layout of the forest files the simulation starts from.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+class ForestCsvWriterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesTheLayoutOfTheForestFiles() throws IOException {
+        Forest forest = new Forest("Montane");
+        forest.addTree(new Tree(Tree.TreeSpecies.MAPLE, 2012, 80, 10.3));
+        forest.addTree(new Tree(Tree.TreeSpecies.FIR, 2020, 12, 15.0));
+        forest.addTree(new Tree(null, 2024, 0.125, -0.0));
+
+        Path file = directory.resolve("Montane.csv");
+        new ForestCsvWriter(1).write(file.toString(), forest);
+
+        assertEquals("Maple,2012,80,10.3\nFir,2020,12,15.0\n,2024,0.125,-0.0",
+                Files.readString(file, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void plainAndCompressedFilesReadBackExactly() throws IOException {
+        Forest forest = new Forest("Grown");
+        forest.plant(3 * TreeColumns.BLOCK_SIZE * 16 + 77, 9);
+        forest.simulateGrowth(11);
+        forest.cutTrees(new int[] {1, 2, 3, 40000});
+        double[] awkward = {0.1, 1e-300, 4.9e-324, 1e15, 123456789012345.0, 1e22, 1.7976931348623157e308};
+        for (double value : awkward) {
+            forest.addTree(new Tree(null, -5, value, -value));
+        }
+
+        for (String name : new String[] {"Grown.csv", "Grown.csv.gz"}) {
+            for (int threads : new int[] {1, 4}) {
+                String fileName = directory.resolve(threads + name).toString();
+                new ForestCsvWriter(threads).write(fileName, forest);
+                Forest read = new Forest("Read");
+                CsvReadReport report = new ForestCsvReader().read(fileName, read);
+                assertEquals(0, report.getErrorCount(), fileName);
+                assertSameTrees(forest, read);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package forestry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static forestry.ForestAssertions.assertSameTrees;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Tests that a journaled forest loads back with every change made since its checkpoint,
+ * and that a journal damaged by a crash is replayed up to the last intact record.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+class ForestJournalTest {
+    @TempDir
+    Path directory;
+
+    private String forestName;
+    private Path journalFile;
+    private Forest forest;
+
+    @BeforeEach
+    void startJournal() throws IOException {
+        forestName = directory.resolve("Journaled").toString();
+        journalFile = Path.of(forestName + ".journal");
+        forest = new Forest("Journaled");
+        forest.plant(500, 1);
+        forest.startJournal(forestName);
+    }
+
+    @AfterEach
+    void stopJournal() throws IOException {
+        forest.stopJournal();
+    }
+
+    @Test
+    void replaysEveryChangeSinceTheCheckpoint() throws IOException {
+        makeChanges();
+        TreeColumns expected = snapshot(forest);
+        forest.stopJournal();
+
+        assertSameTrees(expected, loadAndClose().getColumns());
+    }
+
+    @Test
+    void dropsATornRecordAtTheEnd() throws IOException {
+        makeChanges();
+        TreeColumns expected = snapshot(forest);
+        forest.stopJournal();
+        // A crash part way through a group leaves part of a record behind
+        Files.write(journalFile, new byte[ForestJournal.RECORD_SIZE / 2], StandardOpenOption.APPEND);
+
+        Forest loaded = Forest.load(forestName);
+        assertNotNull(loaded);
+        assertSameTrees(expected, loaded.getColumns());
+
+        // The torn record is overwritten by the next change rather than hiding it from the next replay
+        loaded.addTree(new Tree(Tree.TreeSpecies.FIR, 2001, 12.5, 7.25));
+        TreeColumns afterTear = snapshot(loaded);
+        loaded.stopJournal();
+        assertSameTrees(afterTear, loadAndClose().getColumns());
+    }
+
+    @Test
+    void stopsAtADamagedRecord() throws IOException {
+        makeChanges();
+        Forest.save(forestName, forest);
+        TreeColumns expected = snapshot(forest);
+        forest.addTree(new Tree(Tree.TreeSpecies.BIRCH, 1999, 30.0, 5.0));
+        forest.stopJournal();
+
+        long lastRecord = Files.size(journalFile) - ForestJournal.RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer height = ByteBuffer.allocate(1);
+            channel.read(height, lastRecord + 8);
+            height.put(0, (byte) (height.get(0) ^ 0x40)).clear();
+            channel.write(height, lastRecord + 8);
+        }
+
+        assertSameTrees(expected, loadAndClose().getColumns());
+    }
+
+    @Test
+    void ignoresTheJournalOfAnEarlierCheckpoint() throws IOException {
+        makeChanges();
+        forest.stopJournal();
+        Path stale = directory.resolve("stale.journal");
+        Files.copy(journalFile, stale);
+
+        forest.startJournal(forestName);
+        TreeColumns expected = snapshot(forest);
+        forest.stopJournal();
+        Files.copy(stale, journalFile, StandardCopyOption.REPLACE_EXISTING);
+
+        assertSameTrees(expected, loadAndClose().getColumns());
+    }
+
+    /**
+     * Plants, cuts, grows and reaps, saving in between so some changes are forced to the journal
+     * and others are still pending when the journal is closed.
+     */
+    private void makeChanges() {
+        forest.plant(40, 2);
+        forest.cutTrees(new int[] {3, 77, 250, 510});
+        Forest.save(forestName, forest);
+        forest.simulateYearlyGrowth();
+        forest.simulateGrowth(3);
+        forest.cutTrees(new int[] {0, 1, 400});
+        forest.addTree(new Tree(Tree.TreeSpecies.MAPLE, 2010, 14.0, 5.5));
+        forest.reap(40);
+        Forest.save(forestName, forest);
+        forest.cutTrees(new int[] {12});
+    }
+
+    private static TreeColumns snapshot(Forest forest) {
+        TreeColumns trees = new TreeColumns();
+        trees.addAll(forest.getColumns());
+        return trees;
+    }
+
+    private Forest loadAndClose() throws IOException {
+        Forest loaded = Forest.load(forestName);
+        assertNotNull(loaded);
+        assertEquals(forest.getName(), loaded.getName());
+        loaded.stopJournal();
+        return loaded;
+    }
+}
@@ -0,0 +1,60 @@
+package forestry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static forestry.ForestAssertions.assertSameTrees;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that saving a forest replaces its file whole, so a save that fails leaves the file it would have replaced.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+class ForestSaveTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void aFailedSaveLeavesTheOldFile() throws IOException {
+        String forestName = directory.resolve("Saved").toString();
+        Forest saved = new Forest("Saved");
+        saved.plant(100, 1);
+        assertTrue(Forest.save(forestName, saved));
+
+        // The temporary file cannot be created, so the save fails before the old file is touched
+        Files.createDirectory(Path.of(forestName + ".db.tmp"));
+        Forest changed = saved.copy();
+        changed.plant(50, 2);
+        assertFalse(Forest.save(forestName, changed));
+
+        Forest loaded = Forest.load(forestName);
+        assertNotNull(loaded);
+        assertSameTrees(saved, loaded);
+    }
+
+    @Test
+    void backgroundSavesMatchTheForestWhenTheyWereStarted() throws IOException {
+        String forestName = directory.resolve("Background").toString();
+        Forest forest = new Forest("Background");
+        forest.plant(3 * TreeColumns.BLOCK_SIZE, 3);
+        Forest expected = forest.copy();
+
+        CompletableFuture<Boolean> saved = Forest.saveAsync(forestName, forest);
+        forest.simulateGrowth(5);
+        forest.cutTrees(new int[] {0, 1, 2});
+        assertTrue(saved.join());
+
+        Forest loaded = Forest.load(forestName);
+        assertNotNull(loaded);
+        assertSameTrees(expected, loaded);
+    }
+}
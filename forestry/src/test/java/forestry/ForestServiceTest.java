@@ -0,0 +1,89 @@
+package forestry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the forest service refuses commands that would reach files outside its directory
+ * or allocate more than a client should be able to ask for, and keeps serving the connection after them.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+class ForestServiceTest {
+    private ForestService service;
+    private Socket socket;
+    private BufferedReader input;
+    private OutputStream output;
+
+    @BeforeEach
+    void connect() throws IOException {
+        service = new ForestService(0, null);
+        Forest forest = new Forest("Served");
+        forest.plant(10, 1);
+        service.add("Served", forest);
+        Forest outside = new Forest("Outside");
+        outside.plant(10, 2);
+        service.add("../x", outside);
+        service.start();
+        socket = new Socket(InetAddress.getLoopbackAddress(), service.getPort());
+        input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        output = socket.getOutputStream();
+    }
+
+    @AfterEach
+    void disconnect() throws IOException {
+        socket.close();
+        service.close();
+    }
+
+    @Test
+    void refusesFileNamesOutsideTheDirectory() throws IOException {
+        assertError("LOAD ../x");
+        assertError("SAVE ../x");
+        assertError("LOAD Served ../x");
+        assertError("SAVE Served /tmp/x");
+        assertEquals("Planted 1 trees", send("ADD ../x"));
+    }
+
+    @Test
+    void refusesToPlantTooManyTreesAtOnce() throws IOException {
+        assertError("ADD Served 2000000000");
+        assertError("ADD Served " + (ForestService.MAX_PLANTED + 1));
+        assertEquals("Planted " + ForestService.MAX_PLANTED + " trees", send("ADD Served " + ForestService.MAX_PLANTED));
+    }
+
+    private void assertError(String command) throws IOException {
+        String status = sendCommand(command);
+        assertTrue(status.startsWith("ERR "), command + " answered " + status);
+    }
+
+    private String send(String command) throws IOException {
+        String status = sendCommand(command);
+        assertTrue(status.startsWith("OK "), command + " answered " + status);
+        char[] body = new char[Integer.parseInt(status.substring(3))];
+        int read = 0;
+        while (read < body.length) {
+            read += input.read(body, read, body.length - read);
+        }
+        return new String(body).trim();
+    }
+
+    private String sendCommand(String command) throws IOException {
+        output.write((command + "\n").getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+        return input.readLine();
+    }
+}
@@ -0,0 +1,47 @@
+package forestry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that harvest scenarios give the same yields whichever threads run them,
+ * including the common pool used when the forest has no engine.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+class HarvestScenariosTest {
+    @Test
+    void yieldsAreTheSameOnAnyThreads() {
+        Forest forest = new Forest("Scenarios");
+        forest.plant(2000, 6);
+        HarvestScenarios scenarios = new HarvestScenarios(forest);
+        scenarios.setReapHeights(15, 20, 25);
+        scenarios.setYears(12);
+        scenarios.setRuns(6, 7);
+
+        ParallelForestEngine oneThread = new ParallelForestEngine(1, ParallelForestEngine.DEFAULT_SEQUENTIAL_CUTOFF);
+        ParallelForestEngine fourThreads = new ParallelForestEngine(4, ParallelForestEngine.DEFAULT_SEQUENTIAL_CUTOFF);
+        try {
+            HarvestReport expected = scenarios.run(oneThread);
+            assertSameYields(expected, scenarios.run(fourThreads));
+            assertSameYields(expected, scenarios.run(null));
+        } finally {
+            oneThread.shutdown();
+            fourThreads.shutdown();
+        }
+    }
+
+    private static void assertSameYields(HarvestReport expected, HarvestReport actual) {
+        assertEquals(expected.getStrategyCount(), actual.getStrategyCount());
+        for (int strategy = 0; strategy < expected.getStrategyCount(); strategy++) {
+            for (int run = 0; run < expected.getRunCount(); run++) {
+                assertEquals(expected.getHarvested(strategy, run), actual.getHarvested(strategy, run));
+                assertEquals(expected.getHarvestedHeight(strategy, run), actual.getHarvestedHeight(strategy, run));
+                assertEquals(expected.getStanding(strategy, run), actual.getStanding(strategy, run));
+                assertEquals(expected.getStandingMean(strategy, run), actual.getStandingMean(strategy, run));
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package forestry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static forestry.ForestAssertions.assertSameTrees;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that the parallel engine gives exactly the results of the sequential code, so a seed plants the same
+ * trees and a forest grows to the same heights and averages on any number of threads.
+ * The sequential cutoff is one block, so even these small forests are split across tasks.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+class ParallelForestEngineTest {
+    private static final int TREES = 10 * TreeColumns.BLOCK_SIZE + 123;
+    private static final long SEED = 42;
+
+    private ParallelForestEngine twoThreads;
+    private ParallelForestEngine fourThreads;
+
+    @BeforeEach
+    void startEngines() {
+        twoThreads = new ParallelForestEngine(2, TreeColumns.BLOCK_SIZE);
+        fourThreads = new ParallelForestEngine(4, TreeColumns.BLOCK_SIZE);
+    }
+
+    @AfterEach
+    void stopEngines() {
+        twoThreads.shutdown();
+        fourThreads.shutdown();
+    }
+
+    @Test
+    void plantingIsTheSameOnAnyNumberOfThreads() {
+        TreeColumns sequential = TreeColumns.plant(TREES, SEED);
+        assertSameTrees(sequential, twoThreads.plant(TREES, SEED));
+        assertSameTrees(sequential, fourThreads.plant(TREES, SEED));
+    }
+
+    @Test
+    void growthIsTheSameOnAnyNumberOfThreads() {
+        Forest sequential = plantedForest(null);
+        Forest parallel = plantedForest(fourThreads);
+
+        for (Forest forest : new Forest[] {sequential, parallel}) {
+            forest.simulateYearlyGrowth();
+            forest.simulateYearlyGrowth();
+            forest.simulateGrowth(7);
+        }
+
+        assertSameTrees(sequential, parallel);
+        assertEquals(sequential.calculateAverageHeight(), parallel.calculateAverageHeight());
+        assertEquals(sequential.getStatistics().getPercentile(90), parallel.getStatistics().getPercentile(90));
+    }
+
+    @Test
+    void sumsAreTheSameOnAnyNumberOfThreads() {
+        TreeColumns trees = TreeColumns.plant(TREES, SEED);
+        ForestStatistics sequential = ForestStatistics.measure(trees, 0);
+        ForestStatistics parallel = fourThreads.measure(trees, 0);
+
+        assertEquals(sequential.getCount(), parallel.getCount());
+        assertEquals(sequential.getMean(), parallel.getMean());
+        assertEquals(sequential.getPercentile(50), parallel.getPercentile(50));
+        assertEquals(twoThreads.sumHeights(trees), fourThreads.sumHeights(trees));
+        assertArrayEquals(twoThreads.findTallerThan(trees, 18), fourThreads.findTallerThan(trees, 18));
+    }
+
+    private static Forest plantedForest(ParallelForestEngine engine) {
+        Forest forest = new Forest("Planted");
+        forest.setEngine(engine);
+        forest.plant(TREES, SEED);
+        return forest;
+    }
+}
@@ -0,0 +1,68 @@
+package forestry;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that numbers formatted by hand come out exactly as String.format writes them,
+ * so report rows match Tree.toString() even for values halfway between two results.
+ *
+ * @author Timileyin Ajayi
+ * @version 1.0
+ */
+class ReportWriterTest {
+    private static final double[] BOUNDARIES = {
+            1.005, 2.675, 1.115, 0.125, 0.375, 0.005, 0.015, 10.005, 99.995, 12.345, 1.0049999999999999,
+            0.5, 0, -0.0, -1.005, -0.001, 999.995, 123456.785, 1e14 + 0.125
+    };
+
+    @Test
+    void fixedDecimalsMatchStringFormat() throws IOException {
+        for (double value : BOUNDARIES) {
+            for (int decimals = 0; decimals <= 6; decimals++) {
+                assertFixed(value, decimals);
+            }
+        }
+        SplittableRandom random = new SplittableRandom(5);
+        for (int sample = 0; sample < 100000; sample++) {
+            // Values with few decimal digits often sit exactly on or next to a rounding boundary
+            double value = random.nextInt(1000000) / 1000.0;
+            assertFixed(value, 2);
+            assertFixed(random.nextDouble(-1000, 1000), 2);
+        }
+    }
+
+    @Test
+    void reportRowsMatchTreeToString() throws IOException {
+        Forest forest = new Forest("Boundaries");
+        for (double value : BOUNDARIES) {
+            forest.addTree(new Tree(Tree.TreeSpecies.FIR, 2000, Math.abs(value), value));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReportWriter output = new ReportWriter(bytes, true)) {
+            new ForestReport(forest).write(output);
+        }
+        String report = bytes.toString(StandardCharsets.US_ASCII);
+
+        for (int position = 0; position < forest.size(); position++) {
+            String row = String.format("%4d %s", forest.getTreeNumber(position), forest.getTree(position));
+            assertTrue(report.contains(row + System.lineSeparator()), row);
+        }
+    }
+
+    private static void assertFixed(double value, int decimals) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReportWriter output = new ReportWriter(bytes, true)) {
+            output.appendFixed(value, decimals, 5);
+        }
+        assertEquals(String.format("%5." + decimals + "f", value), bytes.toString(StandardCharsets.US_ASCII),
+                value + " to " + decimals + " decimals");
+    }
+}